@@ -9,6 +9,7 @@ import com.mojang.brigadier.suggestion.SuggestionProvider;
 import io.wispforest.lavender.book.Book;
 import io.wispforest.lavender.book.LavenderBookItem;
 import io.wispforest.lavender.book.BookLoader;
+import io.wispforest.lavender.book.ReloadStatistics;
 import io.wispforest.lavender.client.StructureOverlayRenderer;
 import io.wispforest.lavender.structure.LavenderStructures;
 import net.fabricmc.api.EnvType;
@@ -61,6 +62,7 @@ public class LavenderCommands {
     public static class Client {
 
         private static final SimpleCommandExceptionType NO_SUCH_STRUCTURE = new SimpleCommandExceptionType(Text.literal("No such structure is loaded"));
+        private static final SimpleCommandExceptionType NO_RELOAD_STATISTICS = new SimpleCommandExceptionType(Text.literal("No book contents have been loaded yet"));
         private static final SuggestionProvider<FabricClientCommandSource> STRUCTURE_INFO = (context, builder) ->
                 CommandSource.suggestMatching(LavenderStructures.loadedStructures().stream().map(Identifier::toString), builder);
 
@@ -79,6 +81,15 @@ public class LavenderCommands {
                                 StructureOverlayRenderer.addPendingOverlay(structureId);
                                 return 0;
                             }))));
+
+            dispatcher.register(ClientCommandManager.literal("lavender")
+                    .then(ClientCommandManager.literal("stats").executes(context -> {
+                        var statistics = ReloadStatistics.latest();
+                        if (statistics == null) throw NO_RELOAD_STATISTICS.create();
+
+                        statistics.report().forEach(context.getSource()::sendFeedback);
+                        return 0;
+                    })));
         }
     }
 
@@ -0,0 +1,158 @@
+package io.wispforest.lavender.book;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtHelper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reverse index from items to the entries they are associated with, spanning
+ * all loaded books. Stacks without NBT resolve in a single lookup to a precomputed
+ * result, while stacks with NBT are matched against only those candidates which
+ * specify NBT themselves and are memoized until the start of the next frame.
+ * <p>
+ * The index is rebuilt lazily whenever the entries of any book
+ * or the set of loaded books changed
+ */
+public final class AssociatedItemIndex {
+
+    private static final Association[] NO_ASSOCIATIONS = new Association[0];
+
+    private static @Nullable Map<Item, ItemAssociations> index = null;
+    private static final Set<Book> INDEXED_BOOKS = new ReferenceOpenHashSet<>();
+
+    private static final Map<ItemStack, Association[]> FRAME_MEMO = new Reference2ObjectOpenHashMap<>();
+
+    private AssociatedItemIndex() {}
+
+    /**
+     * @return The entry of every loaded book which {@code stack}
+     * is associated with, at most one per book
+     */
+    public static Association[] associationsOf(ItemStack stack) {
+        if (stack.isEmpty()) return NO_ASSOCIATIONS;
+
+        var associations = index().get(stack.getItem());
+        if (associations == null) return NO_ASSOCIATIONS;
+
+        var nbt = stack.getNbt();
+        if (nbt == null || associations.withNbt.length == 0) return associations.withoutNbt;
+
+        var memoized = FRAME_MEMO.get(stack);
+        if (memoized != null) return memoized;
+
+        var result = new ArrayList<Association>();
+        for (var candidate : associations.withNbt) {
+            if (containsBook(result, candidate.book) || !NbtHelper.matches(candidate.nbt, nbt, true)) continue;
+            result.add(new Association(candidate.book, candidate.entry));
+        }
+
+        for (var association : associations.withoutNbt) {
+            if (!containsBook(result, association.book)) result.add(association);
+        }
+
+        memoized = result.isEmpty() ? NO_ASSOCIATIONS : result.toArray(Association[]::new);
+        FRAME_MEMO.put(stack, memoized);
+        return memoized;
+    }
+
+    /**
+     * @return The entry of {@code book} which {@code stack} is associated
+     * with, or {@code null} if there is none or {@code book} is not loaded
+     */
+    static @Nullable Entry entryOf(Book book, ItemStack stack) {
+        for (var association : associationsOf(stack)) {
+            if (association.book == book) return association.entry;
+        }
+
+        return null;
+    }
+
+    static boolean isIndexed(Book book) {
+        index();
+        return INDEXED_BOOKS.contains(book);
+    }
+
+    /**
+     * Discard the index, causing it to be rebuilt on the next lookup
+     */
+    static void invalidate() {
+        index = null;
+        FRAME_MEMO.clear();
+    }
+
+    /**
+     * Discard all lookups memoized during the previous frame
+     */
+    @ApiStatus.Internal
+    public static void beginFrame() {
+        FRAME_MEMO.clear();
+    }
+
+    private static Map<Item, ItemAssociations> index() {
+        if (index != null) return index;
+
+        var candidatesByItem = new Reference2ObjectOpenHashMap<Item, List<Candidate>>();
+
+        INDEXED_BOOKS.clear();
+        for (var book : BookLoader.loadedBooks()) {
+            INDEXED_BOOKS.add(book);
+
+            book.associatedItemEntries().forEach((item, entry) -> {
+                for (var associatedStack : entry.associatedItems()) {
+                    if (associatedStack.getItem() != item) continue;
+                    candidatesByItem.computeIfAbsent(item, $ -> new ArrayList<>()).add(new Candidate(book, entry, associatedStack.getNbt()));
+                }
+            });
+        }
+
+        var builtIndex = new Reference2ObjectOpenHashMap<Item, ItemAssociations>(candidatesByItem.size());
+        candidatesByItem.forEach((item, candidates) -> {
+            var withNbt = new ArrayList<Candidate>();
+            var withoutNbt = new ArrayList<Association>();
+
+            for (var candidate : candidates) {
+                if (candidate.nbt != null) {
+                    withNbt.add(candidate);
+                } else if (!containsBook(withoutNbt, candidate.book)) {
+                    withoutNbt.add(new Association(candidate.book, candidate.entry));
+                }
+            }
+
+            builtIndex.put(item, new ItemAssociations(
+                    withoutNbt.isEmpty() ? NO_ASSOCIATIONS : withoutNbt.toArray(Association[]::new),
+                    withNbt.toArray(Candidate[]::new)
+            ));
+        });
+
+        return index = builtIndex;
+    }
+
+    private static boolean containsBook(List<Association> associations, Book book) {
+        for (var association : associations) {
+            if (association.book == book) return true;
+        }
+
+        return false;
+    }
+
+    public record Association(Book book, Entry entry) {}
+
+    private record Candidate(Book book, Entry entry, @Nullable NbtCompound nbt) {}
+
+    /**
+     * @param withoutNbt The result for any stack of this item which carries
+     *                   no NBT, which is also the fallback for stacks which do
+     * @param withNbt    All candidates which only match stacks with specific NBT
+     */
+    private record ItemAssociations(Association[] withoutNbt, Candidate[] withNbt) {}
+}
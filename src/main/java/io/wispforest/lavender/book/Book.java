@@ -2,12 +2,18 @@ package io.wispforest.lavender.book;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
 import com.google.gson.JsonParseException;
 import io.wispforest.lavender.Lavender;
 import io.wispforest.owo.ui.core.Component;
 import io.wispforest.owo.ui.core.Sizing;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
@@ -16,20 +22,24 @@ import net.minecraft.sound.SoundEvent;
 import net.minecraft.sound.SoundEvents;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public final class Book {
 
     private static final Pattern MACRO_NAME_PATTERN = Pattern.compile("[a-zA-Z0-9_-]+");
     private static final Pattern MACRO_ARG_PATTERN = Pattern.compile("\\$\\d+");
 
+    private static int visibilityGeneration = 0;
+
     private final Identifier id;
     private final @Nullable Identifier texture;
     private final @Nullable Identifier dynamicBookModel;
@@ -38,8 +48,8 @@ public final class Book {
     private final @Nullable Identifier introEntry;
     private final boolean displayUnreadEntryNotifications;
     private final boolean displayCompletion;
-    private final Map<String, String> zeroArgMacros = new HashMap<>();
-    private final Map<Pattern, Macro> macros = new HashMap<>();
+    private final MacroExpander macroExpander;
+    private final HashCode macroFingerprint;
 
     private final @Nullable Identifier extend;
     private @Nullable Book resolvedExtend = null;
@@ -50,13 +60,41 @@ public final class Book {
     private final Map<Identifier, Entry> entriesById = new HashMap<>();
     private final Collection<Entry> entriesView = Collections.unmodifiableCollection(this.entriesById.values());
 
-    private final Map<Category, List<Entry>> entriesByCategory = new HashMap<>();
+    private final Map<Identifier, List<Entry>> entriesByCategory = new HashMap<>();
     private final Multimap<Item, Entry> entriesByAssociatedItem = HashMultimap.create();
 
     private final List<Entry> orphanedEntries = new ArrayList<>();
     private final Collection<Entry> orphanedEntriesView = Collections.unmodifiableCollection(this.orphanedEntries);
 
     private @Nullable Entry landingPage = null;
+    private @Nullable CategoryTree categoryTree = null;
+
+    private final Map<Identifier, LinkGraph.Links> pageLinks = new HashMap<>();
+    private @Nullable LinkGraph linkGraph = null;
+
+    private final Map<Identifier, String[]> entryBodyTerms = new HashMap<>();
+    private @Nullable CompletableFuture<SearchIndex> searchIndex = null;
+    private @Nullable CompletableFuture<TrigramIndex> trigramIndex = null;
+    private @Nullable String trigramIndexLanguage = null;
+    private @Nullable TrigramIndex previousTrigramIndex = null;
+
+    private @Nullable Reference2IntMap<Entry> entryOrdinals = null;
+    private final BitSet visibleEntries = new BitSet();
+    private int visibleEntriesGeneration = -1;
+    private @Nullable ClientPlayerEntity visibleEntriesPlayer = null;
+    private @Nullable EntryCounters entryCounters = null;
+
+    private final BitSet viewedEntries = new BitSet();
+    private int viewedEntriesGeneration = -1;
+
+    private int displayRevision = 0;
+    private int entryViewsRevision = 0;
+
+    // these describe this book's own resources, even if
+    // their contents were inserted into the book it extends
+    private final ResourceHashes categoryHashes = new ResourceHashes();
+    private final ResourceHashes entryHashes = new ResourceHashes();
+    private int tagsGeneration = -1;
 
     public Book(
             Identifier id,
@@ -82,36 +120,49 @@ public final class Book {
         this.displayUnreadEntryNotifications = displayUnreadEntryNotifications;
         this.displayCompletion = displayCompletion;
 
+        var zeroArgMacros = new HashMap<String, String>();
+        var parametrizedMacros = new HashMap<String, Macro>();
+
         macros.forEach((macro, replacement) -> {
-            int argCount = (int) MACRO_ARG_PATTERN.matcher(replacement).results().count();
-            if (argCount > 0) {
-                if (!MACRO_NAME_PATTERN.asPredicate().test(macro)) {
-                    throw new JsonParseException("Parametrized macro '" + macro + "' contains invalid characters. Parametrized macro names must only contain '[a-zA-Z0-9_-]'");
-                }
+            var parts = new ArrayList<String>();
+            var argIndices = new IntArrayList();
 
-                var parts = new ArrayList<String>();
-                var argIndices = new IntArrayList();
+            var argMatcher = MACRO_ARG_PATTERN.matcher(replacement);
+            int partStart = 0;
 
-                var result = new StringBuilder(replacement);
-                var argMatcher = MACRO_ARG_PATTERN.matcher(result);
+            while (argMatcher.find()) {
+                var argIndex = Ints.tryParse(argMatcher.group().substring(1));
+                if (argIndex == null || argIndex < 1) {
+                    throw new JsonParseException("Parametrized macro '" + macro + "' references invalid argument '" + argMatcher.group() + "'. Macro arguments are numbered starting from $1");
+                }
 
-                while (argMatcher.find()) {
-                    parts.add(result.substring(0, argMatcher.start()));
-                    argIndices.add(Integer.parseInt(argMatcher.group().substring(1)) - 1);
+                parts.add(replacement.substring(partStart, argMatcher.start()));
+                argIndices.add(argIndex - 1);
 
-                    result.delete(0, argMatcher.end());
-                    argMatcher.reset();
+                partStart = argMatcher.end();
+            }
+
+            if (!argIndices.isEmpty()) {
+                if (!MACRO_NAME_PATTERN.asPredicate().test(macro)) {
+                    throw new JsonParseException("Parametrized macro '" + macro + "' contains invalid characters. Parametrized macro names must only contain '[a-zA-Z0-9_-]'");
                 }
 
-                parts.add(result.toString());
-                this.macros.put(
-                        Pattern.compile(Pattern.quote(macro) + "\\(" + Stream.generate(() -> "(.*)").limit(argCount).collect(Collectors.joining(",")) + "\\)"),
-                        new Macro(parts, argIndices)
-                );
+                parts.add(replacement.substring(partStart));
+                parametrizedMacros.put(macro, new Macro(parts, argIndices));
             } else {
-                this.zeroArgMacros.put(macro, replacement);
+                zeroArgMacros.put(macro, replacement);
             }
         });
+
+        this.macroExpander = new MacroExpander(id, zeroArgMacros, parametrizedMacros);
+
+        var macroHasher = Hashing.murmur3_128().newHasher();
+        new TreeMap<>(macros).forEach((macro, replacement) -> {
+            macroHasher.putInt(macro.length()).putString(macro, StandardCharsets.UTF_8);
+            macroHasher.putInt(replacement.length()).putString(replacement, StandardCharsets.UTF_8);
+        });
+
+        this.macroFingerprint = macroHasher.hash();
     }
 
     public Identifier id() {
@@ -145,6 +196,10 @@ public final class Book {
     }
 
     public @Nullable Entry entryByAssociatedItem(ItemStack associatedStack) {
+        var book = this.effectiveBook();
+        if (AssociatedItemIndex.isIndexed(book)) return AssociatedItemIndex.entryOf(book, associatedStack);
+
+        // this book is not (or no longer) loaded, look through its own entries
         var candidates = this.entriesByAssociatedItem.get(associatedStack.getItem());
         for (var candidateEntry : candidates) {
             for (var candidateAssociatedStack : candidateEntry.associatedItems()) {
@@ -160,23 +215,18 @@ public final class Book {
     }
 
     public @Nullable Collection<Entry> entriesByCategory(Category category) {
-        var entries = this.entriesByCategory.get(category);
-        if (entries == null) return null;
+        var entries = this.entriesByCategory.get(category.id());
+        if (entries == null || entries.isEmpty()) return null;
 
         return Collections.unmodifiableCollection(entries);
     }
 
+    /**
+     * @return All entries placed in {@code category} or any of
+     * its (transitive) subcategories, or {@code null} if there are none
+     */
     public @Nullable Collection<Entry> descendantEntriesByCategory(Category category) {
-        var entries = new ArrayList<Entry>();
-        for (var candidate : this.categories.values()) {
-            if (candidate == category || Objects.equals(candidate.parent(), category.id())) {
-                var possibleEntries = this.entriesByCategory(candidate);
-                if (possibleEntries != null) entries.addAll(possibleEntries);
-            }
-        }
-
-        if (entries.isEmpty()) return null;
-        return entries;
+        return this.categoryTree().descendantEntryView(category.id());
     }
 
     public Collection<Category> categories() {
@@ -187,16 +237,59 @@ public final class Book {
         return this.categories.get(categoryId);
     }
 
-    public boolean shouldDisplayCategory(Category category, ClientPlayerEntity player) {
-        var entries = this.descendantEntriesByCategory(category);
-        if (entries == null) return false;
+    /**
+     * @return All entries which contain every term of {@code query} in their title, their
+     * category's title or their content, with terms also matching as prefixes of longer ones.
+     * Entries matching in their title come first. Results are not filtered by whether
+     * any particular player can view them
+     */
+    public List<Entry> search(String query) {
+        return this.effectiveBook().searchIndex().query(query);
+    }
 
-        boolean anyVisible = false;
-        for (var entry : entries) {
-            if (entry.canPlayerView(player)) anyVisible = true;
-        }
+    /**
+     * @return All entries whose title or associated item names contain a word similar to
+     * every word of {@code query}, which tolerates misspellings. Entries are ordered by
+     * similarity and not filtered by whether any particular player can view them.
+     * While the index is being rebuilt after the language changed, item names of the
+     * previous language are used - after the contents changed, nothing is found
+     */
+    public List<Entry> searchSimilar(String query) {
+        var index = this.effectiveBook().trigramIndex();
+        return index != null ? index.query(query) : List.of();
+    }
 
-        return anyVisible;
+    /**
+     * @return The ids of all entries and categories the page {@code pageId} links to,
+     * ordered by how likely they are to be navigated to from it. Targets are not filtered
+     * by whether any particular player can view them
+     */
+    public List<Identifier> outgoingLinks(Identifier pageId) {
+        return List.of(this.effectiveBook().linkGraph().outgoingLinks(pageId));
+    }
+
+    /**
+     * @return The ids of all entries and categories whose pages link to {@code pageId},
+     * either directly or through an item associated with it
+     */
+    public List<Identifier> backlinks(Identifier pageId) {
+        return List.of(this.effectiveBook().linkGraph().backlinks(pageId));
+    }
+
+    /**
+     * @return {@code true} if {@code player} has completed all advancements
+     * required to view {@code entry}. This is only re-evaluated after the
+     * client received an advancement update
+     */
+    public boolean canPlayerView(Entry entry, ClientPlayerEntity player) {
+        int ordinal = this.entryOrdinals().getInt(entry);
+        if (ordinal == -1) return entry.canPlayerView(player);
+
+        return this.visibleEntries(player).get(ordinal);
+    }
+
+    public boolean shouldDisplayCategory(Category category, ClientPlayerEntity player) {
+        return this.entryCounters(player).visibleDescendants(category.id()) > 0;
     }
 
     public boolean shouldDisplayUnreadNotification(Entry entry) {
@@ -205,16 +298,7 @@ public final class Book {
 
     public boolean shouldDisplayUnreadNotification(Category category, ClientPlayerEntity player) {
         if (!this.displayUnreadEntryNotifications) return false;
-
-        var entries = this.descendantEntriesByCategory(category);
-        if (entries == null) return false;
-
-        for (var entry : entries) {
-            if (!entry.canPlayerView(player)) continue;
-            if (!LavenderClientStorage.wasEntryViewed(this, entry)) return true;
-        }
-
-        return false;
+        return this.entryCounters(player).unreadDescendants(category.id()) > 0;
     }
 
     public @Nullable Entry landingPage() {
@@ -242,71 +326,254 @@ public final class Book {
     }
 
     public int countVisibleEntries(ClientPlayerEntity player) {
-        int visible = 0;
-        for (var entry : this.entriesById.values()) {
-            if (!entry.canPlayerView(player)) continue;
-            visible++;
-        }
+        return this.entryCounters(player).visibleEntries();
+    }
 
-        return visible;
+    /**
+     * @return The number of entries placed directly in {@code category}
+     * which {@code player} can view, not including any subcategories
+     */
+    public int countVisibleEntries(Category category, ClientPlayerEntity player) {
+        return this.entryCounters(player).visibleEntries(category.id());
     }
 
-    // --- construction-related methods ---
+    /**
+     * Invalidate the visibility of all entries in all books, called
+     * whenever the client player's advancement progress changes
+     */
+    @ApiStatus.Internal
+    public static void invalidateVisibility() {
+        visibilityGeneration++;
+    }
 
-    String expandMacros(Identifier entry, String input) {
-        var builder = new StringBuilder(input);
+    private Reference2IntMap<Entry> entryOrdinals() {
+        if (this.entryOrdinals == null) {
+            this.entryOrdinals = new Reference2IntOpenHashMap<>(this.entriesById.size());
+            this.entryOrdinals.defaultReturnValue(-1);
 
-        int scans = 0;
-        boolean anyExpansions = true;
-        while (scans < 1000  && anyExpansions) {
-            anyExpansions = false;
+            for (var entry : this.entriesById.values()) {
+                this.entryOrdinals.put(entry, this.entryOrdinals.size());
+            }
 
-            for (var pattern : this.zeroArgMacros.keySet()) {
-                int replaceIndex = builder.indexOf(pattern);
-                while (replaceIndex != -1) {
-                    var replacement = this.zeroArgMacros.get(pattern);
-                    anyExpansions = true;
+            this.visibleEntriesGeneration = -1;
+            this.viewedEntriesGeneration = -1;
+        }
 
-                    builder.replace(replaceIndex, replaceIndex + pattern.length(), replacement);
-                    replaceIndex = builder.indexOf(pattern, replaceIndex + replacement.length());
-                }
-            }
+        return this.entryOrdinals;
+    }
 
-            for (var pattern : this.macros.keySet()) {
-                var replacement = this.macros.get(pattern);
-                var matcher = pattern.matcher(builder);
+    private BitSet visibleEntries(ClientPlayerEntity player) {
+        var ordinals = this.entryOrdinals();
+        if (this.visibleEntriesGeneration != visibilityGeneration || this.visibleEntriesPlayer != player) {
+            this.visibleEntries.clear();
+            ordinals.reference2IntEntrySet().forEach(ordinalEntry -> {
+                if (ordinalEntry.getKey().canPlayerView(player)) this.visibleEntries.set(ordinalEntry.getIntValue());
+            });
+
+            this.visibleEntriesGeneration = visibilityGeneration;
+            this.visibleEntriesPlayer = player;
+            this.entryCounters = null;
+        }
 
-                while (scans < 1000 && matcher.find()) {
-                    scans++;
-                    anyExpansions = true;
+        return this.visibleEntries;
+    }
 
-                    var args = new ArrayList<String>();
-                    for (int i = 1; i <= matcher.groupCount(); i++) {
-                        args.add(matcher.group(i));
-                    }
+    /**
+     * @return The dense ordinal of {@code entry} within this book,
+     * or {@code -1} if it is not one of this book's entries
+     */
+    int entryOrdinal(Entry entry) {
+        return this.entryOrdinals().getInt(entry);
+    }
 
-                    builder.replace(matcher.start(), matcher.end(), replacement.apply(args));
-                    matcher.reset();
-                }
-            }
+    /**
+     * @return The set of entry ordinals which were viewed in the current world, resolved
+     * from {@link LavenderClientStorage} whenever its viewed entries were reloaded
+     */
+    BitSet viewedEntries() {
+        var ordinals = this.entryOrdinals();
+
+        int generation = LavenderClientStorage.viewedEntriesGeneration();
+        if (this.viewedEntriesGeneration != generation) {
+            this.viewedEntries.clear();
+            ordinals.reference2IntEntrySet().forEach(ordinalEntry -> {
+                if (LavenderClientStorage.wasEntryViewed(this.id, ordinalEntry.getKey().id())) this.viewedEntries.set(ordinalEntry.getIntValue());
+            });
+
+            this.viewedEntriesGeneration = generation;
         }
 
-        if (scans >= 1000) {
-            Lavender.LOGGER.warn(
-                    "Preprocessing of entry {} in book {} failed: Macro expansion proceeded for over 1000 scans, a circular macro invocation is likely",
-                    entry,
-                    this.id
+        return this.viewedEntries;
+    }
+
+    private EntryCounters entryCounters(ClientPlayerEntity player) {
+        var visibleEntries = this.visibleEntries(player);
+
+        int viewedEntriesGeneration = LavenderClientStorage.viewedEntriesGeneration();
+        if (this.entryCounters == null || this.entryCounters.viewedEntriesGeneration() != viewedEntriesGeneration) {
+            var ordinals = this.entryOrdinals();
+            this.entryCounters = EntryCounters.count(
+                    this.entriesById.values(),
+                    this.categoryTree(),
+                    viewedEntriesGeneration,
+                    entry -> visibleEntries.get(ordinals.getInt(entry)),
+                    entry -> LavenderClientStorage.wasEntryViewed(this, entry)
             );
+        }
+
+        return this.entryCounters;
+    }
+
+    /**
+     * Called by {@link LavenderClientStorage} when {@code entry}
+     * was viewed for the first time in the current world
+     */
+    void onEntryViewed(Entry entry) {
+        this.effectiveBook().entryViewsRevision++;
+        int viewedEntriesGeneration = LavenderClientStorage.viewedEntriesGeneration();
+
+        int ordinal = this.entryOrdinal(entry);
+        if (ordinal != -1 && this.viewedEntriesGeneration == viewedEntriesGeneration) {
+            this.viewedEntries.set(ordinal);
+        }
+
+        if (this.entryCounters == null || this.categoryTree == null) return;
+        if (this.entryCounters.viewedEntriesGeneration() != viewedEntriesGeneration) return;
+
+        this.entryCounters.markViewed(entry, this.categoryTree);
+    }
+
+    /**
+     * @return A snapshot of everything that influences how the pages of this
+     * book are displayed, namely its contents, the visibility of its entries
+     * and which of them have been viewed. See {@link DisplayRevision#allowsReuseOf(DisplayRevision, boolean)}
+     * for when pages built at an earlier revision can be reused as-is
+     */
+    public DisplayRevision displayRevision() {
+        var book = this.effectiveBook();
+        return new DisplayRevision(book.displayRevision, visibilityGeneration, LavenderClientStorage.viewedEntriesGeneration(), book.entryViewsRevision);
+    }
+
+    private void invalidateIndexes() {
+        this.displayRevision++;
+        this.categoryTree = null;
+        this.linkGraph = null;
+        this.searchIndex = null;
+        this.trigramIndex = null;
+        this.trigramIndexLanguage = null;
+        this.previousTrigramIndex = null;
+        this.entryOrdinals = null;
+        this.entryCounters = null;
+        AssociatedItemIndex.invalidate();
+    }
+
+    Multimap<Item, Entry> associatedItemEntries() {
+        return this.entriesByAssociatedItem;
+    }
+
+    /**
+     * Build the indexes which would otherwise be built on their first
+     * query, called once a reload is done modifying this book. The search
+     * and trigram indexes are built on a worker thread from a copy of the book's contents
+     */
+    void buildIndexes() {
+        this.categoryTree();
+
+        if (this.trigramIndex == null) {
+            this.buildTrigramIndex(MinecraftClient.getInstance().getLanguageManager().getLanguage());
+        }
+
+        if (this.searchIndex == null) {
+            var entries = List.copyOf(this.entriesById.values());
+            var bodyTerms = Map.copyOf(this.entryBodyTerms);
+            var categories = Map.copyOf(this.categories);
+
+            this.searchIndex = CompletableFuture.supplyAsync(() -> SearchIndex.build(entries, bodyTerms, categories::get), Util.getMainWorkerExecutor());
+        }
+    }
+
+    private SearchIndex searchIndex() {
+        // only happens if the contents were modified outside of a reload
+        if (this.searchIndex == null) this.buildIndexes();
+        return this.searchIndex.join();
+    }
+
+    /**
+     * @return The trigram index for the current language if it is ready, otherwise
+     * the one built for the previous language, if any. Starts a rebuild if the
+     * language changed since the last one
+     */
+    private @Nullable TrigramIndex trigramIndex() {
+        var language = MinecraftClient.getInstance().getLanguageManager().getLanguage();
+        if (this.trigramIndex == null || !language.equals(this.trigramIndexLanguage)) {
+            this.buildTrigramIndex(language);
+        }
+
+        var index = this.trigramIndex.getNow(null);
+        if (index == null) return this.previousTrigramIndex;
+
+        this.previousTrigramIndex = index;
+        return index;
+    }
+
+    private void buildTrigramIndex(String language) {
+        var entries = List.copyOf(this.entriesById.values());
+        var itemNames = TrigramIndex.itemNames(entries);
+
+        this.trigramIndex = CompletableFuture.supplyAsync(() -> TrigramIndex.build(entries, itemNames), Util.getMainWorkerExecutor());
+        this.trigramIndexLanguage = language;
+    }
+
+    private LinkGraph linkGraph() {
+        if (this.linkGraph == null) {
+            this.linkGraph = LinkGraph.build(this.pageLinks, this.entriesById, this.categories, this.entriesByCategory, this.entriesByAssociatedItem);
+        }
+
+        return this.linkGraph;
+    }
 
-            return """
-                    {red}**Entry processing failed:**{}
-                                        
-                                        
-                    Macro expansion proceeded for over 1000 scans without reaching
-                    a result - this is almost definitely due to a circular macro invocation
-                    """;
+    private CategoryTree categoryTree() {
+        if (this.categoryTree == null) {
+            this.categoryTree = CategoryTree.build(this.categories, this.entriesByCategory);
+        }
+
+        return this.categoryTree;
+    }
+
+    // --- construction-related methods ---
+
+    String expandMacros(Identifier entry, String input) {
+        return this.macroExpander.expand(entry, input);
+    }
+
+    /**
+     * @return A hash over this book's macro table, used to determine
+     * whether previously expanded content is still valid
+     */
+    HashCode macroFingerprint() {
+        return this.macroFingerprint;
+    }
+
+    void setLinks(Identifier pageId, LinkGraph.Links links) {
+        if (this.resolvedExtend != null) {
+            this.resolvedExtend.setLinks(pageId, links);
         } else {
-            return builder.toString();
+            if (links == LinkGraph.Links.NONE) {
+                this.pageLinks.remove(pageId);
+            } else {
+                this.pageLinks.put(pageId, links);
+            }
+
+            this.linkGraph = null;
+        }
+    }
+
+    void setBodyTerms(Identifier entryId, String[] terms) {
+        if (this.resolvedExtend != null) {
+            this.resolvedExtend.setBodyTerms(entryId, terms);
+        } else {
+            this.entryBodyTerms.put(entryId, terms);
+            this.searchIndex = null;
         }
     }
 
@@ -319,11 +586,12 @@ public final class Book {
             this.resolvedExtend.addEntry(entry);
         } else {
             this.entriesById.put(entry.id(), entry);
+            this.invalidateIndexes();
             entry.associatedItems().forEach(stack -> this.entriesByAssociatedItem.put(stack.getItem(), entry));
 
             if (this.categories.containsKey(entry.category())) {
                 this.entriesByCategory
-                        .computeIfAbsent(this.categories.get(entry.category()), $ -> new ArrayList<>())
+                        .computeIfAbsent(entry.category(), $ -> new ArrayList<>())
                         .add(entry);
             } else if (entry.category() == null) {
                 this.orphanedEntries.add(entry);
@@ -333,14 +601,71 @@ public final class Book {
         }
     }
 
+    void removeEntry(Identifier entryId) {
+        if (this.resolvedExtend != null) {
+            this.resolvedExtend.removeEntry(entryId);
+            return;
+        }
+
+        if (this.landingPage != null && this.landingPage.id().equals(entryId)) {
+            this.landingPage = null;
+        }
+
+        if (this.pageLinks.remove(entryId) != null) this.linkGraph = null;
+        if (this.entryBodyTerms.remove(entryId) != null) this.searchIndex = null;
+
+        var entry = this.entriesById.remove(entryId);
+        if (entry == null) return;
+
+        this.invalidateIndexes();
+        entry.associatedItems().forEach(stack -> this.entriesByAssociatedItem.remove(stack.getItem(), entry));
+        this.orphanedEntries.remove(entry);
+
+        if (entry.category() != null) {
+            var categoryEntries = this.entriesByCategory.get(entry.category());
+            if (categoryEntries != null) categoryEntries.remove(entry);
+        }
+    }
+
     void addCategory(Category category) {
         if (this.resolvedExtend != null) {
             this.resolvedExtend.addCategory(category);
         } else {
             this.categories.put(category.id(), category);
+            this.invalidateIndexes();
+        }
+    }
+
+    void removeCategory(Identifier categoryId) {
+        if (this.resolvedExtend != null) {
+            this.resolvedExtend.removeCategory(categoryId);
+        } else {
+            this.categories.remove(categoryId);
+            this.pageLinks.remove(categoryId);
+            this.invalidateIndexes();
         }
     }
 
+    ResourceHashes categoryHashes() {
+        return this.categoryHashes;
+    }
+
+    ResourceHashes entryHashes() {
+        return this.entryHashes;
+    }
+
+    /**
+     * @return The tag generation this book's contents were last
+     * loaded in, or {@code -1} if they were never loaded
+     */
+    int tagsGeneration() {
+        return this.tagsGeneration;
+    }
+
+    void setTagsGeneration(int tagsGeneration) {
+        this.tagsGeneration = tagsGeneration;
+    }
+
     boolean tryResolveExtension() {
         if (this.extend == null) return true;
 
@@ -352,11 +677,34 @@ public final class Book {
         return this.resolvedExtend != null ? this.resolvedExtend.effectiveId() : this.id;
     }
 
+    /**
+     * @return The book into which this book's contents are inserted,
+     * which is this book itself unless it is an extension
+     */
+    Book effectiveBook() {
+        return this.resolvedExtend != null ? this.resolvedExtend.effectiveBook() : this;
+    }
+
     public interface BookmarkableElement {
         String title();
         Function<Sizing, Component> iconFactory();
     }
 
+    public record DisplayRevision(int content, int visibility, int viewedEntries, int entryViews) {
+
+        /**
+         * @return {@code true} if pages built at revision {@code built} are still
+         * up-to-date at this revision. Viewing an entry only affects pages which
+         * display the viewed state of entries, as indicated by {@code showsViewedEntries}
+         */
+        public boolean allowsReuseOf(DisplayRevision built, boolean showsViewedEntries) {
+            return this.content == built.content
+                    && this.visibility == built.visibility
+                    && this.viewedEntries == built.viewedEntries
+                    && (!showsViewedEntries || this.entryViews == built.entryViews);
+        }
+    }
+
     public record Macro(List<String> parts, IntList argIndices) {
         String apply(List<String> args) {
             var result = new StringBuilder();
@@ -364,11 +712,24 @@ public final class Book {
                 result.append(this.parts.get(i));
 
                 var argIndex = this.argIndices.getInt(i);
-                result.append(argIndex - 1 < args.size() ? args.get(i) : "");
+                result.append(argIndex < args.size() ? args.get(argIndex) : "");
             }
 
             result.append(this.parts.get(this.parts.size() - 1));
             return result.toString();
         }
+
+        /**
+         * @return The number of arguments an invocation of this macro must supply,
+         * which is determined by the highest argument index it references
+         */
+        int argCount() {
+            int argCount = 0;
+            for (int i = 0; i < this.argIndices.size(); i++) {
+                argCount = Math.max(argCount, this.argIndices.getInt(i) + 1);
+            }
+
+            return argCount;
+        }
     }
 }
@@ -0,0 +1,254 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.wispforest.lavender.Lavender;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent, content-addressed cache of preprocessed markdown resources for
+ * a single book. Records are keyed by a hash over the resource's pack, location and raw
+ * content and store the resource's macro-expanded body. The frontmatter is not stored,
+ * since it has to be read from the resource anyway to compute the key.
+ * <p>
+ * Since the expanded body also depends on the book's macros, the whole
+ * cache is discarded if the book's macro table changes.
+ * <p>
+ * The file starts with an index of all records, followed by their bodies. This
+ * allows reading a single body without loading the others, which is how bodies
+ * are loaded again after they were evicted from memory
+ */
+final class BookContentCache {
+
+    private static final HashFunction KEY_HASH = Hashing.murmur3_128();
+    private static final int FORMAT_VERSION = 4;
+
+    private final Path file;
+    private final HashCode macroFingerprint;
+
+    private final Map<HashCode, Record> storedRecords;
+    private final Map<HashCode, Record> usedRecords = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    private BookContentCache(Path file, HashCode macroFingerprint, Map<HashCode, Record> storedRecords) {
+        this.file = file;
+        this.macroFingerprint = macroFingerprint;
+        this.storedRecords = storedRecords;
+    }
+
+    /**
+     * Load the cache of {@code book} from disk, or create an empty
+     * one if there is none or it cannot be used
+     */
+    static BookContentCache load(Book book) {
+        return load(cacheFile(book), book.macroFingerprint());
+    }
+
+    /**
+     * Load the cache stored in {@code file}, or create an empty one if there is
+     * none or it was created for a macro table other than {@code macroFingerprint}
+     */
+    static BookContentCache load(Path file, HashCode macroFingerprint) {
+        var records = new HashMap<HashCode, Record>();
+
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) return new BookContentCache(file, macroFingerprint, records);
+            if (!HashCode.fromBytes(readBytes(input)).equals(macroFingerprint)) return new BookContentCache(file, macroFingerprint, records);
+
+            // bodies are stored in the same order as the index
+            var keys = new HashCode[input.readInt()];
+            var lengths = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = HashCode.fromBytes(readBytes(input));
+                input.readLong();
+                lengths[i] = input.readInt();
+            }
+
+            for (int i = 0; i < keys.length; i++) {
+                var body = new byte[lengths[i]];
+                input.readFully(body);
+                records.put(keys[i], new Record(new String(body, StandardCharsets.UTF_8)));
+            }
+        } catch (NoSuchFileException ignored) {
+            // no cache yet, start from scratch
+        } catch (IOException | RuntimeException e) {
+            Lavender.LOGGER.warn("Could not read content cache file {}, discarding it", file, e);
+            records.clear();
+        }
+
+        return new BookContentCache(file, macroFingerprint, records);
+    }
+
+    /**
+     * @return The body stored under {@code key} in the cache of {@code book}, read
+     * without loading any other record, or {@code null} if there is no such record
+     */
+    static @Nullable String readBody(Book book, HashCode key) {
+        return readBody(cacheFile(book), book.macroFingerprint(), key);
+    }
+
+    static @Nullable String readBody(Path file, HashCode macroFingerprint, HashCode key) {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) return null;
+            if (!HashCode.fromBytes(readBytes(input)).equals(macroFingerprint)) return null;
+
+            long offset = -1;
+            int length = 0;
+
+            int recordCount = input.readInt();
+            for (int i = 0; i < recordCount; i++) {
+                var recordKey = HashCode.fromBytes(readBytes(input));
+                long recordOffset = input.readLong();
+                int recordLength = input.readInt();
+
+                if (!recordKey.equals(key)) continue;
+                offset = recordOffset;
+                length = recordLength;
+            }
+
+            if (offset < 0) return null;
+
+            // offsets are relative to the end of the index
+            input.skipNBytes(offset);
+
+            var body = new byte[length];
+            input.readFully(body);
+            return new String(body, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException ignored) {
+            // no cache, the body must be expanded again
+        } catch (IOException | RuntimeException e) {
+            Lavender.LOGGER.warn("Could not read record from content cache file {}", file, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Compute the cache key of the resource with the given
+     * pack, location and hash of its raw contents
+     */
+    static HashCode keyOf(String packName, Identifier location, HashCode contentHash) {
+        return KEY_HASH.newHasher()
+                .putString(packName, StandardCharsets.UTF_8)
+                .putString(location.toString(), StandardCharsets.UTF_8)
+                .putBytes(contentHash.asBytes())
+                .hash();
+    }
+
+    /**
+     * @return The record stored under {@code key}, or {@code null}
+     * if the resource it refers to was not processed before
+     */
+    @Nullable Record get(HashCode key) {
+        var record = this.storedRecords.get(key);
+        if (record != null) this.usedRecords.put(key, record);
+
+        return record;
+    }
+
+    /**
+     * Keep the record stored under {@code key}, if any, when this cache is saved. Resources
+     * which are unchanged since the last reload are not looked up in the cache, but their
+     * records must survive so that the next cold load can still use them
+     */
+    void retain(HashCode key) {
+        var record = this.storedRecords.get(key);
+        if (record != null) this.usedRecords.put(key, record);
+    }
+
+    /**
+     * Keep all stored records when this cache is saved, for reloads which only
+     * process some of the book's resources. Records of resources which were
+     * changed in the meantime are only dropped by the next full reload
+     */
+    void retainAll() {
+        this.storedRecords.forEach(this.usedRecords::putIfAbsent);
+    }
+
+    void put(HashCode key, String content) {
+        this.usedRecords.put(key, new Record(content));
+        this.dirty = true;
+    }
+
+    /**
+     * Write all records which were used, retained or added since this cache was
+     * loaded back to disk. Records of resources which no longer exist are dropped
+     */
+    void save() {
+        if (!this.dirty && this.usedRecords.size() == this.storedRecords.size()) return;
+
+        try {
+            Files.createDirectories(this.file.getParent());
+
+            var tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            var keys = new ArrayList<HashCode>(this.usedRecords.size());
+            var bodies = new ArrayList<byte[]>(this.usedRecords.size());
+            this.usedRecords.forEach((key, record) -> {
+                keys.add(key);
+                bodies.add(record.content.getBytes(StandardCharsets.UTF_8));
+            });
+
+            try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                writeBytes(output, this.macroFingerprint.asBytes());
+
+                output.writeInt(keys.size());
+
+                long offset = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                    writeBytes(output, keys.get(i).asBytes());
+                    output.writeLong(offset);
+                    output.writeInt(bodies.get(i).length);
+
+                    offset += bodies.get(i).length;
+                }
+
+                for (var body : bodies) output.write(body);
+            }
+
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Lavender.LOGGER.warn("Could not write content cache file {}", this.file, e);
+        }
+    }
+
+    private static Path cacheFile(Book book) {
+        return FabricLoader.getInstance().getConfigDir()
+                .resolve("lavender")
+                .resolve("content_cache")
+                .resolve(book.id().getNamespace())
+                .resolve(book.id().getPath() + ".bin");
+    }
+
+    // --- serialization ---
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        var bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * @param content The macro-expanded markdown body
+     */
+    record Record(String content) {}
+}
@@ -1,14 +1,19 @@
 package io.wispforest.lavender.book;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
 import com.google.gson.*;
 import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import io.wispforest.lavender.Lavender;
+import io.wispforest.lavender.book.BookResourceIndex.BookResource;
+import io.wispforest.lavender.client.CompiledPageCache;
+import io.wispforest.lavender.client.ParsedEntryCache;
 import io.wispforest.owo.ui.component.Components;
 import io.wispforest.owo.ui.container.Containers;
 import io.wispforest.owo.ui.core.Component;
 import io.wispforest.owo.ui.core.Sizing;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
 import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.fabric.api.resource.conditions.v1.ResourceConditions;
@@ -23,22 +28,37 @@ import net.minecraft.registry.tag.TagKey;
 import net.minecraft.resource.*;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.JsonHelper;
-import org.apache.commons.io.IOUtils;
+import net.minecraft.util.Util;
+import net.minecraft.util.profiler.Profiler;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.util.*;
-import java.util.function.BiConsumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
-public class BookContentLoader implements SynchronousResourceReloader, IdentifiableResourceReloadListener {
+public class BookContentLoader implements IdentifiableResourceReloadListener {
 
-    private static final ResourceFinder ENTRY_FINDER = new ResourceFinder("lavender/entries", ".md");
-    private static final ResourceFinder CATEGORY_FINDER = new ResourceFinder("lavender/categories", ".md");
     private static final Gson GSON = new GsonBuilder().setLenient().disableHtmlEscaping().create();
 
+    private static final String CONTENT_UNAVAILABLE = """
+            {red}**Entry processing failed:**{}
+
+
+            The contents of this entry could
+            not be loaded from its resource
+            """;
+
+    // incremented every time tags are (re-)loaded, so that entries
+    // whose contents depend on tags can be rebuilt accordingly
+    private static volatile int tagsGeneration = 0;
+
     public static void initialize() {
         ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new BookContentLoader());
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> tagsGeneration++);
     }
 
     @Override
@@ -47,171 +67,452 @@ public class BookContentLoader implements SynchronousResourceReloader, Identifia
     }
 
     @Override
-    public void reload(ResourceManager manager) {
-        reloadContents(manager);
+    public CompletableFuture<Void> reload(Synchronizer synchronizer, ResourceManager manager, Profiler prepareProfiler, Profiler applyProfiler, Executor prepareExecutor, Executor applyExecutor) {
+        var statistics = new ReloadStatistics();
+        return prepareContents(manager, prepareExecutor, statistics)
+                .thenCompose(synchronizer::whenPrepared)
+                .thenAcceptAsync(preparedBooks -> {
+                    applyContents(preparedBooks, statistics);
+                    statistics.publish();
+                }, applyExecutor);
     }
 
     public static void reloadContents(ResourceManager manager) {
-        var entries = findResources(manager, ENTRY_FINDER);
-        var categories = findResources(manager, CATEGORY_FINDER);
+        var statistics = new ReloadStatistics();
+        applyContents(prepareContents(manager, Util.getMainWorkerExecutor(), statistics).join(), statistics);
+        statistics.publish();
+    }
 
-        for (var book : BookLoader.allBooks()) {
-            forResourceOfBook(categories, book, "category", (identifier, resource) -> {
-                var markdown = parseMarkdown(book, identifier, resource);
-                if (markdown == null) return;
-
-                var parentCategory = JsonHelper.getString(markdown.meta, "parent", null);
-                var parentCategoryId = parentCategory != null
-                        ? parentCategory.indexOf(':') > 0 ? Identifier.tryParse(parentCategory) : new Identifier(identifier.getNamespace(), parentCategory)
-                        : null;
-
-                book.addCategory(new Category(
-                        identifier,
-                        parentCategoryId,
-                        JsonHelper.getString(markdown.meta, "title"),
-                        getIcon(markdown.meta),
-                        JsonHelper.getBoolean(markdown.meta, "secret", false),
-                        JsonHelper.getInt(markdown.meta, "ordinal", Integer.MAX_VALUE),
-                        markdown.content
-                ));
-            });
+    /**
+     * Reload only the entry or category at {@code location}, which was
+     * just created, modified or deleted, and patch it into its book
+     *
+     * @return The book whose contents changed, or {@code null} if
+     * {@code location} does not affect any loaded book
+     */
+    @ApiStatus.Internal
+    public static @Nullable Book reloadResource(ResourceManager manager, Identifier location) {
+        var languageManager = MinecraftClient.getInstance().getLanguageManager();
+        var activeLanguage = languageManager.getLanguage();
+
+        var resourcePath = BookResourceIndex.parseLocation(location, languageManager.getAllLanguages().keySet());
+        if (resourcePath == null) return null;
+        if (resourcePath.language() != null && !resourcePath.language().equals(activeLanguage)) return null;
+
+        var book = BookLoader.get(new Identifier(resourcePath.namespace(), resourcePath.book()));
+        if (book == null) return null;
+
+        // the file that changed might be shadowed by (or might have been
+        // shadowing) a translation, so look for whichever one is in effect now
+        var resourceId = new Identifier(resourcePath.namespace(), resourcePath.path());
+        BookResource resource = null;
+        for (var language : new String[]{activeLanguage, null}) {
+            var candidateLocation = BookResourceIndex.locationOf(resourcePath.isEntry(), book.id(), language, resourcePath.path());
+
+            var candidate = manager.getResource(candidateLocation);
+            if (candidate.isEmpty()) continue;
+
+            resource = new BookResource(candidateLocation, candidate.get());
+            break;
+        }
+
+        var cache = BookContentCache.load(book);
+        var statistics = new ReloadStatistics();
+
+        PreparedBook prepared;
+        if (resourcePath.isEntry()) {
+            var entry = resource != null
+                    ? prepareResource("entry", book, statistics.book(book.id()), cache, book.entryHashes(), false, resourceId, resource, markdown -> parseEntry(resourceId, markdown))
+                    : null;
+
+            prepared = new PreparedBook(book, book.tagsGeneration(), List.of(), entry != null ? List.of(entry) : List.of(), Set.of(), entry == null ? Set.of(resourceId) : Set.of());
+        } else {
+            var category = resource != null
+                    ? prepareResource("category", book, statistics.book(book.id()), cache, book.categoryHashes(), false, resourceId, resource, markdown -> parseCategory(resourceId, markdown))
+                    : null;
+
+            prepared = new PreparedBook(book, book.tagsGeneration(), category != null ? List.of(category) : List.of(), List.of(), category == null ? Set.of(resourceId) : Set.of(), Set.of());
         }
 
+        // only one resource was processed, so the records
+        // of all others must survive this save
+        cache.retainAll();
+        cache.save();
+
+        applyContents(List.of(prepared), statistics);
+
+        return book.effectiveBook();
+    }
+
+    /**
+     * Read, parse and macro-expand the contents of every loaded book. Each
+     * resource is processed as a separate task on {@code executor}, the returned
+     * future completes once all of them are done.
+     * <p>
+     * Resources which the book already loaded from identical contents during the
+     * last reload are not processed at all. Of the remaining ones, those whose exact
+     * contents were processed before are taken from the book's {@link BookContentCache}
+     */
+    private static CompletableFuture<List<PreparedBook>> prepareContents(ResourceManager manager, Executor executor, ReloadStatistics statistics) {
+        var activeLanguage = MinecraftClient.getInstance().getLanguageManager().getLanguage();
+        var languages = Set.copyOf(MinecraftClient.getInstance().getLanguageManager().getAllLanguages().keySet());
+        int currentTagsGeneration = tagsGeneration;
+
+        // the hashes are only ever modified on the apply thread,
+        // so we take a snapshot before leaving it
+        var snapshots = new ArrayList<BookSnapshot>();
         for (var book : BookLoader.allBooks()) {
-            forResourceOfBook(entries, book, "entry", (identifier, resource) -> {
-                var markdown = parseMarkdown(book, identifier, resource);
-                if (markdown == null) return;
-
-                var category = JsonHelper.getString(markdown.meta, "category", null);
-                var categoryId = category != null
-                        ? category.indexOf(':') > 0 ? Identifier.tryParse(category) : new Identifier(identifier.getNamespace(), category)
-                        : null;
-
-                var title = JsonHelper.getString(markdown.meta, "title");
-                var icon = getIcon(markdown.meta);
-                var secret = JsonHelper.getBoolean(markdown.meta, "secret", false);
-                var ordinal = JsonHelper.getInt(markdown.meta, "ordinal", Integer.MAX_VALUE);
-
-                var associatedItems = new ImmutableSet.Builder<ItemStack>();
-                for (var itemElement : JsonHelper.getArray(markdown.meta, "associated_items", new JsonArray())) {
-                    associatedItems.addAll(itemsFromString(itemElement.getAsString()));
-                }
+            snapshots.add(new BookSnapshot(book, book.categoryHashes().copy(), book.entryHashes().copy(), book.tagsGeneration() != currentTagsGeneration));
+        }
 
-                var requiredAdvancements = new ImmutableSet.Builder<Identifier>();
-                for (var advancementElement : JsonHelper.getArray(markdown.meta, "required_advancements", new JsonArray())) {
-                    if (!advancementElement.isJsonPrimitive()) continue;
+        return CompletableFuture.supplyAsync(() -> {
+            long discoveryStart = System.nanoTime();
+            var resourceIndex = BookResourceIndex.build(manager, languages);
+            statistics.record(ReloadStatistics.Phase.DISCOVERY, discoveryStart);
+
+            var bookFutures = new ArrayList<CompletableFuture<PreparedBook>>();
+            for (var snapshot : snapshots) {
+                var book = snapshot.book;
+                var bookStatistics = statistics.book(book.id());
+
+                long cacheLoadStart = System.nanoTime();
+                var cache = BookContentCache.load(book);
+                bookStatistics.record(ReloadStatistics.Phase.IO, cacheLoadStart);
+
+                var categoryResources = resourceIndex.categoriesOf(book, activeLanguage);
+                var categoryFutures = new ArrayList<CompletableFuture<PreparedResource<Category>>>();
+                categoryResources.forEach((identifier, resource) -> {
+                    categoryFutures.add(CompletableFuture.supplyAsync(() -> {
+                        return prepareResource("category", book, bookStatistics, cache, snapshot.categoryHashes, snapshot.tagsChanged, identifier, resource, markdown -> parseCategory(identifier, markdown));
+                    }, executor));
+                });
+
+                var entryResources = resourceIndex.entriesOf(book, activeLanguage);
+                var entryFutures = new ArrayList<CompletableFuture<PreparedResource<Entry>>>();
+                entryResources.forEach((identifier, resource) -> {
+                    entryFutures.add(CompletableFuture.supplyAsync(() -> {
+                        return prepareResource("entry", book, bookStatistics, cache, snapshot.entryHashes, snapshot.tagsChanged, identifier, resource, markdown -> parseEntry(identifier, markdown));
+                    }, executor));
+                });
+
+                var removedCategories = new HashSet<>(snapshot.categoryHashes.resourceIds());
+                removedCategories.removeAll(categoryResources.keySet());
+
+                var removedEntries = new HashSet<>(snapshot.entryHashes.resourceIds());
+                removedEntries.removeAll(entryResources.keySet());
+
+                bookFutures.add(CompletableFuture.allOf(Stream.concat(categoryFutures.stream(), entryFutures.stream()).toArray(CompletableFuture[]::new))
+                        .thenApply($ -> {
+                            long cacheSaveStart = System.nanoTime();
+                            cache.save();
+                            bookStatistics.record(ReloadStatistics.Phase.IO, cacheSaveStart);
+
+                            var preparedBook = new PreparedBook(
+                                    book,
+                                    currentTagsGeneration,
+                                    collectResults(categoryFutures),
+                                    collectResults(entryFutures),
+                                    removedCategories,
+                                    removedEntries
+                            );
+
+                            preparedBook.countInto(bookStatistics);
+                            return preparedBook;
+                        }));
+            }
+
+            return bookFutures;
+        }, executor).thenCompose(bookFutures -> CompletableFuture.allOf(bookFutures.toArray(CompletableFuture[]::new))
+                .thenApply($ -> collectResults(bookFutures)));
+    }
+
+    /**
+     * Insert previously prepared contents into their books, replacing whatever
+     * they contained for changed resources and dropping that of removed ones.
+     * <p>
+     * Categories of all books are added before any entries, since an entry
+     * may be placed into a category contributed by an extension book
+     */
+    private static void applyContents(List<PreparedBook> preparedBooks, ReloadStatistics statistics) {
+        long applyStart = System.nanoTime();
+        LazyContent.evictRecent();
+        CompiledPageCache.clear();
+        ParsedEntryCache.clear();
+
+        for (var prepared : preparedBooks) {
+            for (var entryId : prepared.removedEntries) {
+                prepared.book.removeEntry(entryId);
+                prepared.book.entryHashes().forget(entryId);
+            }
+
+            for (var entry : prepared.entries) {
+                if (entry.unchanged) continue;
+
+                prepared.book.removeEntry(entry.id);
+                prepared.book.entryHashes().forget(entry.id);
+            }
+
+            for (var categoryId : prepared.removedCategories) {
+                prepared.book.removeCategory(categoryId);
+                prepared.book.categoryHashes().forget(categoryId);
+            }
 
-                    var advancementId = Identifier.tryParse(advancementElement.getAsString());
-                    if (advancementId == null) {
-                        Lavender.LOGGER.warn("Did not add advancement '{}' as requirement to entry '{}' as it is not a valid advancement identifier", advancementElement.getAsString(), identifier);
-                        continue;
+            for (var category : prepared.categories) {
+                if (category.unchanged) continue;
+
+                prepared.book.removeCategory(category.id);
+                prepared.book.categoryHashes().forget(category.id);
+
+                if (category.value == null) continue;
+
+                prepared.book.addCategory(category.value);
+                prepared.book.setLinks(category.id, category.links);
+                prepared.book.categoryHashes().record(category.id, category.hash, category.dependsOnTags);
+            }
+        }
+
+        for (var prepared : preparedBooks) {
+            for (var entry : prepared.entries) {
+                if (entry.unchanged || entry.value == null) continue;
+
+                try {
+                    if (entry.id.getPath().equals("landing_page")) {
+                        prepared.book.setLandingPage(entry.value);
+                    } else {
+                        prepared.book.addEntry(entry.value);
                     }
 
-                    requiredAdvancements.add(advancementId);
-                }
+                    prepared.book.setLinks(entry.id, entry.links);
+                    prepared.book.setBodyTerms(entry.id, entry.bodyTerms);
 
-                var entry = new Entry(identifier, categoryId, title, icon, secret, ordinal, requiredAdvancements.build(), associatedItems.build(), markdown.content);
-                if (entry.id().getPath().equals("landing_page")) {
-                    book.setLandingPage(entry);
-                } else {
-                    book.addEntry(entry);
+                    prepared.book.entryHashes().record(entry.id, entry.hash, entry.dependsOnTags);
+                } catch (RuntimeException e) {
+                    Lavender.LOGGER.warn("Could not load entry '{}'", entry.id, e);
                 }
-            });
+            }
+
+            prepared.book.setTagsGeneration(prepared.tagsGeneration);
         }
-    }
 
-    private static Map<String, Map<String, Resource>> findResources(ResourceManager manager, ResourceFinder finder) {
-        var resources = new HashMap<String, Map<String, Resource>>();
-        finder.findResources(manager).forEach((identifier, resource) -> {
-            var resourceId = finder.toResourceId(identifier);
-            resources.computeIfAbsent(resourceId.getNamespace(), s -> new HashMap<>()).put(resourceId.getPath(), resource);
-        });
+        // unchanged entries may have lost their category, in which case
+        // they are dropped just like they would have been in a full reload
+        for (var prepared : preparedBooks) {
+            var effectiveBook = prepared.book.effectiveBook();
 
-        return resources;
-    }
+            for (var entry : prepared.entries) {
+                if (!entry.unchanged) continue;
 
-    private static void forResourceOfBook(Map<String, Map<String, Resource>> resources, Book book, String resourceType, BiConsumer<Identifier, Resource> action) {
-        if (!resources.containsKey(book.id().getNamespace())) return;
+                var loadedEntry = effectiveBook.entryById(entry.id);
+                if (loadedEntry == null || loadedEntry.category() == null || effectiveBook.categoryById(loadedEntry.category()) != null) continue;
 
-        var targetBook = book.id().getPath();
-        var activeLanguage = MinecraftClient.getInstance().getLanguageManager().getLanguage();
+                Lavender.LOGGER.warn("Could not load entry '{}' because category '{}' was not found in book '{}'", entry.id, loadedEntry.category(), effectiveBook.id());
+                prepared.book.removeEntry(entry.id);
+                prepared.book.entryHashes().forget(entry.id);
+            }
+        }
 
-        var discoveredResources = new HashMap<Identifier, Resource>();
+        var modifiedBooks = new HashSet<Book>();
+        for (var prepared : preparedBooks) {
+            if (modifiedBooks.add(prepared.book.effectiveBook())) prepared.book.effectiveBook().buildIndexes();
+        }
+
+        statistics.record(ReloadStatistics.Phase.APPLY, applyStart);
+        ParsedEntryCache.warmUp();
+    }
+
+    /**
+     * Hash the given resource and, unless it is unchanged since the last reload, parse
+     * it into its final form using {@code parser}. A {@code null} parse result means
+     * that the resource does not contribute to the book in this reload, either because
+     * its conditions are not met or because it failed to load
+     */
+    private static <T> PreparedResource<T> prepareResource(String resourceType, Book book, ReloadStatistics.BookStatistics statistics, BookContentCache cache, ResourceHashes previousHashes, boolean tagsChanged, Identifier resourceId, BookResource resource, Function<MarkdownResource, T> parser) {
+        MarkdownResource markdown;
+        HashCode hash;
+
+        long phaseStart = System.nanoTime();
+        try (var reader = new MarkdownReader(resource.resource().getInputStream())) {
+            var rawMeta = reader.readFrontmatter();
+            phaseStart = statistics.record(ReloadStatistics.Phase.IO, phaseStart);
+
+            var meta = GSON.fromJson(rawMeta, JsonObject.class);
+            boolean conditionsMet = ResourceConditions.objectMatchesConditions(meta);
+            phaseStart = statistics.record(ReloadStatistics.Phase.FRONTMATTER, phaseStart);
+
+            // the resource does not contribute anything,
+            // so there is no reason to even look at its body
+            if (!conditionsMet) {
+                statistics.countBytes(reader.bytesRead());
+                return new PreparedResource<>(resourceId, null, false, null, false, LinkGraph.Links.NONE, SearchIndex.NO_TERMS);
+            }
 
-        resources.get(book.id().getNamespace()).forEach((path, resource) -> {
-            var bookResourcePath = getBookResourcePath(path, targetBook, null);
-            if (bookResourcePath == null) return;
+            var body = reader.readBody();
+            statistics.countBytes(reader.bytesRead());
 
-            discoveredResources.put(new Identifier(book.id().getNamespace(), bookResourcePath), resource);
-        });
+            hash = BookContentCache.keyOf(resource.resource().getResourcePackName(), resource.location(), reader.hash());
+            phaseStart = statistics.record(ReloadStatistics.Phase.IO, phaseStart);
 
-        resources.get(book.id().getNamespace()).forEach((path, resource) -> {
-            var bookResourcePath = getBookResourcePath(path, targetBook, activeLanguage);
-            if (bookResourcePath == null) return;
+            if (previousHashes.isUnchanged(resourceId, hash, tagsChanged)) {
+                cache.retain(hash);
+                return new PreparedResource<>(resourceId, hash, true, null, false, LinkGraph.Links.NONE, SearchIndex.NO_TERMS);
+            }
 
-            discoveredResources.put(new Identifier(book.id().getNamespace(), bookResourcePath), resource);
-        });
+            String expandedContent;
 
-        discoveredResources.forEach((resourceId, resource) -> {
-            try {
-                action.accept(resourceId, resource);
-            } catch (RuntimeException e) {
-                Lavender.LOGGER.warn("Could not load {} '{}'", resourceType, resourceId, e);
+            var cached = cache.get(hash);
+            if (cached != null) {
+                expandedContent = cached.content();
+            } else {
+                expandedContent = book.expandMacros(resourceId, body);
+                cache.put(hash, expandedContent);
             }
-        });
+
+            var links = LinkGraph.Links.extract(expandedContent);
+            var bodyTerms = SearchIndex.bodyTerms(expandedContent);
+            phaseStart = statistics.record(ReloadStatistics.Phase.MACRO_EXPANSION, phaseStart);
+
+            // bodies are still expanded here since links and search terms are extracted from
+            // the expanded text. only the frontmatter, links and terms are retained though,
+            // the body is read back from the content cache when needed
+            var key = hash;
+            markdown = new MarkdownResource(meta, LazyContent.load(() -> loadContent(book, resourceId, resource.location(), key)), links, bodyTerms);
+        } catch (IOException | RuntimeException e) {
+            Lavender.LOGGER.warn("Could not load {} '{}'", resourceType, resourceId, e);
+            return new PreparedResource<>(resourceId, null, false, null, false, LinkGraph.Links.NONE, SearchIndex.NO_TERMS);
+        }
+
+        try {
+            return new PreparedResource<>(resourceId, hash, false, parser.apply(markdown), dependsOnTags(markdown.meta), markdown.links, markdown.bodyTerms);
+        } catch (RuntimeException e) {
+            Lavender.LOGGER.warn("Could not load {} '{}'", resourceType, resourceId, e);
+            return new PreparedResource<>(resourceId, hash, false, null, false, LinkGraph.Links.NONE, SearchIndex.NO_TERMS);
+        } finally {
+            statistics.record(ReloadStatistics.Phase.ITEM_RESOLUTION, phaseStart);
+        }
+    }
+
+    private static String loadContent(Book book, Identifier resourceId, Identifier location, HashCode key) {
+        var cached = BookContentCache.readBody(book, key);
+        if (cached != null) return cached;
+
+        // the cache could not be written or was
+        // replaced, so expand the resource again
+        try (var reader = new MarkdownReader(MinecraftClient.getInstance().getResourceManager().open(location))) {
+            reader.readFrontmatter();
+            return book.expandMacros(resourceId, reader.readBody());
+        } catch (IOException | RuntimeException e) {
+            Lavender.LOGGER.warn("Could not load contents of markdown file {}", resourceId, e);
+            return CONTENT_UNAVAILABLE;
+        }
     }
 
-    private static @Nullable String getBookResourcePath(String resourcePath, String bookName, @Nullable String activeLanguage) {
-        String book = null;
-        String language = null;
+    /**
+     * @return {@code true} if the result of loading a resource with the given
+     * frontmatter may differ depending on which tags are currently loaded
+     */
+    private static boolean dependsOnTags(JsonObject meta) {
+        if (meta.has(ResourceConditions.CONDITIONS_KEY)) return true;
 
-        if (resourcePath.indexOf('/') != -1) {
-            book = resourcePath.substring(0, resourcePath.indexOf('/'));
-            resourcePath = resourcePath.substring(resourcePath.indexOf('/')+ 1);
+        for (var itemElement : JsonHelper.getArray(meta, "associated_items", new JsonArray())) {
+            if (itemElement.isJsonPrimitive() && itemElement.getAsString().startsWith("#")) return true;
         }
 
-        if (resourcePath.indexOf('/') != -1) {
-            language = resourcePath.substring(0, resourcePath.indexOf('/'));
-            if (MinecraftClient.getInstance().getLanguageManager().getAllLanguages().keySet().contains(language)) {
-                resourcePath = resourcePath.substring(resourcePath.indexOf('/') + 1);
-            } else {
-                language = null;
+        return false;
+    }
+
+    private static Category parseCategory(Identifier identifier, MarkdownResource markdown) {
+        var parentCategory = JsonHelper.getString(markdown.meta, "parent", null);
+        var parentCategoryId = parentCategory != null
+                ? parentCategory.indexOf(':') > 0 ? Identifier.tryParse(parentCategory) : new Identifier(identifier.getNamespace(), parentCategory)
+                : null;
+
+        return new Category(
+                identifier,
+                parentCategoryId,
+                JsonHelper.getString(markdown.meta, "title"),
+                getIcon(markdown.meta),
+                JsonHelper.getBoolean(markdown.meta, "secret", false),
+                JsonHelper.getInt(markdown.meta, "ordinal", Integer.MAX_VALUE),
+                markdown.content
+        );
+    }
+
+    private static Entry parseEntry(Identifier identifier, MarkdownResource markdown) {
+        var category = JsonHelper.getString(markdown.meta, "category", null);
+        var categoryId = category != null
+                ? category.indexOf(':') > 0 ? Identifier.tryParse(category) : new Identifier(identifier.getNamespace(), category)
+                : null;
+
+        var title = JsonHelper.getString(markdown.meta, "title");
+        var icon = getIcon(markdown.meta);
+        var secret = JsonHelper.getBoolean(markdown.meta, "secret", false);
+        var ordinal = JsonHelper.getInt(markdown.meta, "ordinal", Integer.MAX_VALUE);
+
+        var associatedItems = new ImmutableSet.Builder<ItemStack>();
+        for (var itemElement : JsonHelper.getArray(markdown.meta, "associated_items", new JsonArray())) {
+            associatedItems.addAll(itemsFromString(itemElement.getAsString()));
+        }
+
+        var requiredAdvancements = new ImmutableSet.Builder<Identifier>();
+        for (var advancementElement : JsonHelper.getArray(markdown.meta, "required_advancements", new JsonArray())) {
+            if (!advancementElement.isJsonPrimitive()) continue;
+
+            var advancementId = Identifier.tryParse(advancementElement.getAsString());
+            if (advancementId == null) {
+                Lavender.LOGGER.warn("Did not add advancement '{}' as requirement to entry '{}' as it is not a valid advancement identifier", advancementElement.getAsString(), identifier);
+                continue;
             }
+
+            requiredAdvancements.add(advancementId);
         }
 
-        if (!bookName.equals(book) || !Objects.equals(activeLanguage, language)) return null;
-        return resourcePath;
+        return new Entry(identifier, categoryId, title, icon, secret, ordinal, requiredAdvancements.build(), associatedItems.build(), markdown.content);
     }
 
-    private static @Nullable MarkdownResource parseMarkdown(Book book, Identifier resourceId, Resource resource) {
-        try {
-            var content = IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8).strip();
-            JsonObject meta;
-
-            if (content.startsWith("```json")) {
-                content = content.substring("```json".length());
-                int frontmatterEnd = content.indexOf("```");
-                if (frontmatterEnd == -1) {
-                    throw new RuntimeException("Unterminated markdown meta");
-                }
+    private static <T> List<T> collectResults(List<CompletableFuture<T>> futures) {
+        var results = new ArrayList<T>(futures.size());
+        for (var future : futures) {
+            var result = future.join();
+            if (result != null) results.add(result);
+        }
 
-                meta = GSON.fromJson(content.substring(0, frontmatterEnd), JsonObject.class);
-                content = content.substring(frontmatterEnd + 3).stripLeading();
+        return results;
+    }
 
-                return ResourceConditions.objectMatchesConditions(meta)
-                        ? new MarkdownResource(meta, book.expandMacros(resourceId, content.replaceAll("\\r\\n?", "\n")))
-                        : null;
-            } else {
-                throw new RuntimeException("Missing markdown meta");
+    private record MarkdownResource(JsonObject meta, LazyContent content, LinkGraph.Links links, String[] bodyTerms) {}
+
+    private record BookSnapshot(Book book, ResourceHashes categoryHashes, ResourceHashes entryHashes, boolean tagsChanged) {}
+
+    /**
+     * @param hash      The content hash of the resource, or {@code null} if it could not be read
+     * @param unchanged Whether the resource was loaded from identical contents during
+     *                  the last reload, in which case {@code value} is always {@code null}
+     * @param links     The references contained in the resource's content
+     * @param bodyTerms The search terms of the resource's content
+     */
+    private record PreparedResource<T>(Identifier id, @Nullable HashCode hash, boolean unchanged, @Nullable T value, boolean dependsOnTags, LinkGraph.Links links, String[] bodyTerms) {}
+
+    private record PreparedBook(
+            Book book,
+            int tagsGeneration,
+            List<PreparedResource<Category>> categories,
+            List<PreparedResource<Entry>> entries,
+            Set<Identifier> removedCategories,
+            Set<Identifier> removedEntries
+    ) {
+        private void countInto(ReloadStatistics.BookStatistics statistics) {
+            for (var category : this.categories) {
+                if (category.unchanged) statistics.countUnchanged();
+                if (category.unchanged || category.value != null) statistics.countCategory();
+            }
+
+            for (var entry : this.entries) {
+                if (entry.unchanged) statistics.countUnchanged();
+                if (entry.unchanged || entry.value != null) statistics.countEntry();
             }
-        } catch (Exception e) {
-            Lavender.LOGGER.warn("Could not load markdown file {}", resourceId, e);
-            return null;
         }
     }
 
-    private record MarkdownResource(JsonObject meta, String content) {}
-
     private static Function<Sizing, Component> getIcon(JsonObject meta) {
         if (meta.has("icon")) {
             var stack = itemStackFromString(JsonHelper.getString(meta, "icon"));
@@ -1,5 +1,7 @@
 package io.wispforest.lavender.book;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 import com.mojang.serialization.JsonOps;
@@ -18,10 +20,9 @@ import net.minecraft.util.Util;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 public class BookLoader {
 
@@ -31,6 +32,7 @@ public class BookLoader {
 
     private static final Map<Identifier, Book> LOADED_BOOKS = new HashMap<>();
     private static final Map<Identifier, Book> VISIBLE_BOOKS = new HashMap<>();
+    private static final Map<Identifier, HashCode> GROUP_FINGERPRINTS = new HashMap<>();
 
     public static void initialize() {
         ModelLoadingPlugin.register(context -> {
@@ -54,52 +56,126 @@ public class BookLoader {
         return Collections.unmodifiableCollection(LOADED_BOOKS.values());
     }
 
+    /**
+     * Reload all book definitions from {@code manager}. Books whose own definition and
+     * whose extensions' definitions are unchanged since the last reload are kept as-is,
+     * including all of their content - all others are created anew
+     */
     public static void reload(ResourceManager manager) {
-        LOADED_BOOKS.clear();
+        long reloadStart = System.nanoTime();
+
+        var definitions = new HashMap<Identifier, BookDefinition>();
         BOOK_FINDER.findResources(manager).forEach((identifier, resource) -> {
-            JsonElement jsonElement;
-            try (var reader = resource.getReader()) {
-                jsonElement = JsonHelper.deserialize(GSON, reader, JsonElement.class);
+            byte[] data;
+            try (var stream = resource.getInputStream()) {
+                data = stream.readAllBytes();
             } catch (IOException e) {
                 Lavender.LOGGER.warn("Could not load book '{}'", identifier, e);
                 return;
             }
 
+            var jsonElement = JsonHelper.deserialize(GSON, new StringReader(new String(data, StandardCharsets.UTF_8)), JsonElement.class);
             if (!jsonElement.isJsonObject()) return;
-            var bookObject = jsonElement.getAsJsonObject();
+
             var resourceId = BOOK_FINDER.toResourceId(identifier);
+            definitions.put(resourceId, new BookDefinition(identifier, resourceId, jsonElement.getAsJsonObject(), Hashing.murmur3_128().hashBytes(data)));
+        });
 
-            var textureId = tryGetId(bookObject, "texture");
-            var extendId = tryGetId(bookObject, "extend");
-            var dynamicBookModelId = tryGetId(bookObject, "dynamic_book_model");
+        // books are kept or rebuilt together with all of their extensions,
+        // since extensions insert their contents directly into the book they extend
+        var groupMembers = new HashMap<Identifier, List<HashCode>>();
+        definitions.forEach((resourceId, definition) -> {
+            groupMembers.computeIfAbsent(groupRoot(definitions, resourceId), $ -> new ArrayList<>()).add(Hashing.murmur3_128().newHasher()
+                    .putString(resourceId.toString(), StandardCharsets.UTF_8)
+                    .putBytes(definition.hash.asBytes())
+                    .hash());
+        });
 
-            Text dynamicBookName = null;
-            if (bookObject.has("dynamic_book_name")) {
-                dynamicBookName = Util.getResult(TextCodecs.CODEC.parse(JsonOps.INSTANCE, bookObject.get("dynamic_book_name")), JsonParseException::new);
-            }
+        var groupFingerprints = new HashMap<Identifier, HashCode>();
+        groupMembers.forEach((root, members) -> groupFingerprints.put(root, Hashing.combineUnordered(members)));
 
-            var openSoundId = tryGetId(bookObject, "open_sound");
-            var openSoundEvent = openSoundId != null ? Registries.SOUND_EVENT.get(openSoundId) : null;
-            var flippingSoundId = tryGetId(bookObject, "flipping_sound");
-            var flippingSoundEvent = flippingSoundId != null ? Registries.SOUND_EVENT.get(flippingSoundId) : null;
+        var previousBooks = new HashMap<>(LOADED_BOOKS);
+        LOADED_BOOKS.clear();
+        VISIBLE_BOOKS.clear();
 
-            var introEntryId = tryGetId(bookObject, "intro_entry");
+        definitions.forEach((resourceId, definition) -> {
+            var groupRoot = groupRoot(definitions, resourceId);
 
-            var displayCompletion = JsonHelper.getBoolean(bookObject, "display_completion", false);
-            var displayUnreadEntryNotifications = JsonHelper.getBoolean(bookObject, "display_unread_entry_notifications", true);
-            var macros = GSON.fromJson(JsonHelper.getObject(bookObject, "macros", new JsonObject()), MACROS_TOKEN);
+            var book = previousBooks.get(resourceId);
+            if (book == null || !groupFingerprints.get(groupRoot).equals(GROUP_FINGERPRINTS.get(groupRoot))) {
+                book = createBook(definition);
+                if (book == null) return;
+            }
 
-            var book = new Book(resourceId, extendId, textureId, dynamicBookModelId, dynamicBookName, openSoundEvent, flippingSoundEvent, introEntryId, displayUnreadEntryNotifications, displayCompletion, macros);
             LOADED_BOOKS.put(resourceId, book);
-            if (extendId == null) VISIBLE_BOOKS.put(resourceId, book);
+            if (tryGetId(definition.json, "extend") == null) VISIBLE_BOOKS.put(resourceId, book);
         });
 
+        GROUP_FINGERPRINTS.clear();
+        GROUP_FINGERPRINTS.putAll(groupFingerprints);
+
         LOADED_BOOKS.values().removeIf(book -> {
             if (book.tryResolveExtension()) return false;
 
             Lavender.LOGGER.warn("Book '" + book.id() + "' (an extension) failed to load because its target was not found");
+            VISIBLE_BOOKS.remove(book.id());
             return true;
         });
+
+        AssociatedItemIndex.invalidate();
+        ReloadStatistics.recordBookDefinitions(LOADED_BOOKS.size(), reloadStart);
+    }
+
+    private static @Nullable Book createBook(BookDefinition definition) {
+        var bookObject = definition.json;
+
+        var textureId = tryGetId(bookObject, "texture");
+        var extendId = tryGetId(bookObject, "extend");
+        var dynamicBookModelId = tryGetId(bookObject, "dynamic_book_model");
+
+        Text dynamicBookName = null;
+        if (bookObject.has("dynamic_book_name")) {
+            dynamicBookName = Util.getResult(TextCodecs.CODEC.parse(JsonOps.INSTANCE, bookObject.get("dynamic_book_name")), JsonParseException::new);
+        }
+
+        var openSoundId = tryGetId(bookObject, "open_sound");
+        var openSoundEvent = openSoundId != null ? Registries.SOUND_EVENT.get(openSoundId) : null;
+        var flippingSoundId = tryGetId(bookObject, "flipping_sound");
+        var flippingSoundEvent = flippingSoundId != null ? Registries.SOUND_EVENT.get(flippingSoundId) : null;
+
+        var introEntryId = tryGetId(bookObject, "intro_entry");
+
+        var displayCompletion = JsonHelper.getBoolean(bookObject, "display_completion", false);
+        var displayUnreadEntryNotifications = JsonHelper.getBoolean(bookObject, "display_unread_entry_notifications", true);
+        var macros = GSON.fromJson(JsonHelper.getObject(bookObject, "macros", new JsonObject()), MACROS_TOKEN);
+
+        try {
+            return new Book(definition.resourceId, extendId, textureId, dynamicBookModelId, dynamicBookName, openSoundEvent, flippingSoundEvent, introEntryId, displayUnreadEntryNotifications, displayCompletion, macros);
+        } catch (JsonParseException e) {
+            Lavender.LOGGER.warn("Could not load book '{}'", definition.identifier, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The id of the book at the end of the extension chain
+     * starting at {@code bookId}
+     */
+    private static Identifier groupRoot(Map<Identifier, BookDefinition> definitions, Identifier bookId) {
+        var visited = new HashSet<Identifier>();
+
+        var root = bookId;
+        while (visited.add(root)) {
+            var definition = definitions.get(root);
+            if (definition == null) break;
+
+            var extendId = tryGetId(definition.json, "extend");
+            if (extendId == null) break;
+
+            root = extendId;
+        }
+
+        return root;
     }
 
     private static @Nullable Identifier tryGetId(JsonObject json, String key) {
@@ -108,4 +184,6 @@ public class BookLoader {
 
         return Identifier.tryParse(jsonString);
     }
+
+    private record BookDefinition(Identifier identifier, Identifier resourceId, JsonObject json, HashCode hash) {}
 }
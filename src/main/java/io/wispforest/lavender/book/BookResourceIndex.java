@@ -0,0 +1,140 @@
+package io.wispforest.lavender.book;
+
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceFinder;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of all entry and category resources available during a single reload,
+ * built in one pass over the resource manager. Resources are grouped by namespace,
+ * book and language, so that the resources of any given book can be retrieved
+ * without looking at those of any other
+ */
+final class BookResourceIndex {
+
+    private static final String DIRECTORY = "lavender";
+    private static final String EXTENSION = ".md";
+    private static final ResourceFinder FINDER = new ResourceFinder(DIRECTORY, EXTENSION);
+
+    private static final String ENTRIES_DIRECTORY = "entries";
+    private static final String CATEGORIES_DIRECTORY = "categories";
+
+    private final Map<Key, Map<String, BookResource>> entries = new HashMap<>();
+    private final Map<Key, Map<String, BookResource>> categories = new HashMap<>();
+
+    private BookResourceIndex() {}
+
+    /**
+     * Index all entries and categories provided by {@code manager}
+     *
+     * @param languages The codes of all known languages, used to determine
+     *                  whether a path segment denotes a translation
+     */
+    static BookResourceIndex build(ResourceManager manager, Set<String> languages) {
+        var index = new BookResourceIndex();
+
+        FINDER.findResources(manager).forEach((identifier, resource) -> {
+            var resourcePath = parseLocation(identifier, languages);
+            if (resourcePath == null) return;
+
+            var target = resourcePath.isEntry ? index.entries : index.categories;
+            target.computeIfAbsent(new Key(resourcePath.namespace, resourcePath.book, resourcePath.language), $ -> new HashMap<>())
+                    .put(resourcePath.path, new BookResource(identifier, resource));
+        });
+
+        return index;
+    }
+
+    /**
+     * Split the full location of an entry or category resource into its components
+     *
+     * @return The components of {@code location}, or {@code null} if
+     * it does not denote an entry or category
+     */
+    static @Nullable ResourcePath parseLocation(Identifier location, Set<String> languages) {
+        if (!location.getPath().startsWith(DIRECTORY + "/") || !location.getPath().endsWith(EXTENSION)) return null;
+        var path = FINDER.toResourceId(location).getPath();
+
+        // <entries|categories>/<book>/[<language>/]<path>
+        int kindEnd = path.indexOf('/');
+        if (kindEnd == -1) return null;
+
+        var kind = path.substring(0, kindEnd);
+        if (!kind.equals(ENTRIES_DIRECTORY) && !kind.equals(CATEGORIES_DIRECTORY)) return null;
+
+        int bookEnd = path.indexOf('/', kindEnd + 1);
+        if (bookEnd == -1) return null;
+
+        var book = path.substring(kindEnd + 1, bookEnd);
+        String language = null;
+        int pathStart = bookEnd + 1;
+
+        int languageEnd = path.indexOf('/', pathStart);
+        if (languageEnd != -1 && languages.contains(path.substring(pathStart, languageEnd))) {
+            language = path.substring(pathStart, languageEnd);
+            pathStart = languageEnd + 1;
+        }
+
+        return new ResourcePath(kind.equals(ENTRIES_DIRECTORY), location.getNamespace(), book, language, path.substring(pathStart));
+    }
+
+    /**
+     * @return The full location of the entry or category at {@code path}
+     * in {@code book}, translated into {@code language} if it is not {@code null}
+     */
+    static Identifier locationOf(boolean isEntry, Identifier book, @Nullable String language, String path) {
+        return FINDER.toResourcePath(new Identifier(
+                book.getNamespace(),
+                (isEntry ? ENTRIES_DIRECTORY : CATEGORIES_DIRECTORY) + "/" + book.getPath() + "/" + (language != null ? language + "/" : "") + path
+        ));
+    }
+
+    /**
+     * @return All entries of {@code book}, preferring those translated
+     * into {@code activeLanguage} over untranslated ones
+     */
+    Map<Identifier, BookResource> entriesOf(Book book, String activeLanguage) {
+        return resourcesOf(this.entries, book, activeLanguage);
+    }
+
+    /**
+     * @return All categories of {@code book}, preferring those translated
+     * into {@code activeLanguage} over untranslated ones
+     */
+    Map<Identifier, BookResource> categoriesOf(Book book, String activeLanguage) {
+        return resourcesOf(this.categories, book, activeLanguage);
+    }
+
+    private static Map<Identifier, BookResource> resourcesOf(Map<Key, Map<String, BookResource>> resources, Book book, String activeLanguage) {
+        var namespace = book.id().getNamespace();
+        var bookResources = new HashMap<Identifier, BookResource>();
+
+        var fallback = resources.get(new Key(namespace, book.id().getPath(), null));
+        if (fallback != null) fallback.forEach((path, resource) -> bookResources.put(new Identifier(namespace, path), resource));
+
+        var translated = resources.get(new Key(namespace, book.id().getPath(), activeLanguage));
+        if (translated != null) translated.forEach((path, resource) -> bookResources.put(new Identifier(namespace, path), resource));
+
+        return bookResources;
+    }
+
+    /**
+     * @param location The full location of the resource, including
+     *                 its directory, book, language and file extension
+     */
+    record BookResource(Identifier location, Resource resource) {}
+
+    /**
+     * @param path The path of the resource relative to its book and language directory,
+     *             which is also the path of the id of the entry or category it defines
+     */
+    record ResourcePath(boolean isEntry, String namespace, String book, @Nullable String language, String path) {}
+
+    private record Key(String namespace, String book, @Nullable String language) {}
+}
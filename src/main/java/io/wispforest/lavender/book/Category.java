@@ -14,5 +14,14 @@ public record Category(
         Function<Sizing, Component> iconFactory,
         boolean secret,
         int ordinal,
-        String content
-) implements Book.BookmarkableElement {}
+        LazyContent lazyContent
+) implements Book.BookmarkableElement {
+
+    public Category(Identifier id, @Nullable Identifier parent, String title, Function<Sizing, Component> iconFactory, boolean secret, int ordinal, String content) {
+        this(id, parent, title, iconFactory, secret, ordinal, LazyContent.of(content));
+    }
+
+    public String content() {
+        return this.lazyContent.get();
+    }
+}
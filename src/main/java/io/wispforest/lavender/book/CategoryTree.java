@@ -0,0 +1,109 @@
+package io.wispforest.lavender.book;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a book's category hierarchy, storing for each
+ * category the entries placed in it and all of its (transitive) subcategories,
+ * as well as the inverse mapping from each entry to all categories containing it.
+ * The book builds it once a reload is applied, or on the first query after its contents
+ * changed otherwise, so that all queries over a category's descendants need neither search nor allocate
+ */
+final class CategoryTree {
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Identifier[] NO_CATEGORIES = new Identifier[0];
+
+    private final Map<Identifier, Entry[]> descendantEntries;
+    private final Map<Identifier, List<Entry>> descendantEntryViews;
+    private final Map<Entry, Identifier[]> containingCategories;
+
+    private CategoryTree(Map<Identifier, Entry[]> descendantEntries, Map<Entry, Identifier[]> containingCategories) {
+        this.descendantEntries = descendantEntries;
+        this.containingCategories = containingCategories;
+
+        this.descendantEntryViews = new HashMap<>(descendantEntries.size());
+        descendantEntries.forEach((categoryId, entries) -> {
+            if (entries.length != 0) this.descendantEntryViews.put(categoryId, Collections.unmodifiableList(Arrays.asList(entries)));
+        });
+    }
+
+    static CategoryTree build(Map<Identifier, Category> categories, Map<Identifier, List<Entry>> entriesByCategory) {
+        var children = new HashMap<Identifier, List<Identifier>>();
+        for (var category : categories.values()) {
+            if (category.parent() == null || !categories.containsKey(category.parent())) continue;
+            children.computeIfAbsent(category.parent(), $ -> new ArrayList<>()).add(category.id());
+        }
+
+        var descendantEntries = new HashMap<Identifier, Entry[]>();
+        for (var categoryId : categories.keySet()) {
+            collectDescendants(categoryId, children, entriesByCategory, descendantEntries, new HashSet<>());
+        }
+
+        var categoriesByEntry = new Reference2ObjectOpenHashMap<Entry, List<Identifier>>();
+        descendantEntries.forEach((categoryId, entries) -> {
+            for (var entry : entries) {
+                categoriesByEntry.computeIfAbsent(entry, $ -> new ArrayList<>()).add(categoryId);
+            }
+        });
+
+        var containingCategories = new Reference2ObjectOpenHashMap<Entry, Identifier[]>(categoriesByEntry.size());
+        categoriesByEntry.forEach((entry, categoryIds) -> containingCategories.put(entry, categoryIds.toArray(Identifier[]::new)));
+
+        return new CategoryTree(descendantEntries, containingCategories);
+    }
+
+    private static Entry[] collectDescendants(
+            Identifier categoryId,
+            Map<Identifier, List<Identifier>> children,
+            Map<Identifier, List<Entry>> entriesByCategory,
+            Map<Identifier, Entry[]> descendantEntries,
+            Set<Identifier> visiting
+    ) {
+        var known = descendantEntries.get(categoryId);
+        if (known != null) return known;
+
+        // a category which (indirectly) is its own parent
+        // cannot contribute any further entries
+        if (!visiting.add(categoryId)) return NO_ENTRIES;
+
+        var entries = new ArrayList<Entry>(entriesByCategory.getOrDefault(categoryId, List.of()));
+        for (var child : children.getOrDefault(categoryId, List.of())) {
+            entries.addAll(Arrays.asList(collectDescendants(child, children, entriesByCategory, descendantEntries, visiting)));
+        }
+
+        visiting.remove(categoryId);
+
+        var result = entries.isEmpty() ? NO_ENTRIES : entries.toArray(Entry[]::new);
+        descendantEntries.put(categoryId, result);
+        return result;
+    }
+
+    /**
+     * @return The entries placed in {@code categoryId} or any
+     * of its subcategories. The returned array must not be modified
+     */
+    Entry[] descendantEntries(Identifier categoryId) {
+        return this.descendantEntries.getOrDefault(categoryId, NO_ENTRIES);
+    }
+
+    /**
+     * @return An unmodifiable view of the {@link #descendantEntries(Identifier)}
+     * of {@code categoryId}, or {@code null} if there are none
+     */
+    @Nullable List<Entry> descendantEntryView(Identifier categoryId) {
+        return this.descendantEntryViews.get(categoryId);
+    }
+
+    /**
+     * @return All categories for which {@code entry} is among the {@link #descendantEntries(Identifier)},
+     * that is its own category and all of that category's ancestors. The returned array must not be modified
+     */
+    Identifier[] containingCategories(Entry entry) {
+        return this.containingCategories.getOrDefault(entry, NO_CATEGORIES);
+    }
+}
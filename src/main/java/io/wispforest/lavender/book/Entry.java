@@ -20,9 +20,27 @@ public record Entry(
         int ordinal,
         ImmutableSet<Identifier> requiredAdvancements,
         ImmutableSet<ItemStack> associatedItems,
-        String content
+        LazyContent lazyContent
 ) implements Book.BookmarkableElement {
 
+    public Entry(
+            Identifier id,
+            @Nullable Identifier category,
+            String title,
+            Function<Sizing, Component> iconFactory,
+            boolean secret,
+            int ordinal,
+            ImmutableSet<Identifier> requiredAdvancements,
+            ImmutableSet<ItemStack> associatedItems,
+            String content
+    ) {
+        this(id, category, title, iconFactory, secret, ordinal, requiredAdvancements, associatedItems, LazyContent.of(content));
+    }
+
+    public String content() {
+        return this.lazyContent.get();
+    }
+
     public boolean canPlayerView(ClientPlayerEntity player) {
         var advancementHandler = player.networkHandler.getAdvancementHandler();
 
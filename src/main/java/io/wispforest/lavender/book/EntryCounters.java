@@ -0,0 +1,98 @@
+package io.wispforest.lavender.book;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.util.Identifier;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Counts of the entries in a book which the player can view and has not read
+ * yet, both for the entire book and for each category. They are counted once
+ * whenever the visibility of the book's entries changes and afterwards kept
+ * current as entries are marked as viewed, so that completion bars and unread
+ * notifications never need to look at individual entries
+ */
+final class EntryCounters {
+
+    private final int viewedEntriesGeneration;
+
+    private int visibleEntries = 0;
+    private final Object2IntOpenHashMap<Identifier> visibleEntriesByCategory = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<Identifier> visibleDescendantsByCategory = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<Identifier> unreadDescendantsByCategory = new Object2IntOpenHashMap<>();
+
+    private final Set<Entry> unreadEntries = new ReferenceOpenHashSet<>();
+
+    private EntryCounters(int viewedEntriesGeneration) {
+        this.viewedEntriesGeneration = viewedEntriesGeneration;
+    }
+
+    /**
+     * @param viewedEntriesGeneration The {@link LavenderClientStorage#viewedEntriesGeneration()} of the viewed entries counted
+     * @param visible                 Whether a given entry can be viewed by the player
+     * @param viewed                  Whether a given entry was already viewed
+     */
+    static EntryCounters count(Iterable<Entry> entries, CategoryTree tree, int viewedEntriesGeneration, Predicate<Entry> visible, Predicate<Entry> viewed) {
+        var counters = new EntryCounters(viewedEntriesGeneration);
+
+        for (var entry : entries) {
+            if (!visible.test(entry)) continue;
+            counters.visibleEntries++;
+
+            if (entry.category() != null) counters.visibleEntriesByCategory.addTo(entry.category(), 1);
+
+            boolean unread = !viewed.test(entry);
+            if (unread) counters.unreadEntries.add(entry);
+
+            for (var categoryId : tree.containingCategories(entry)) {
+                counters.visibleDescendantsByCategory.addTo(categoryId, 1);
+                if (unread) counters.unreadDescendantsByCategory.addTo(categoryId, 1);
+            }
+        }
+
+        return counters;
+    }
+
+    /**
+     * Update these counters to reflect {@code entry} having been
+     * viewed for the first time
+     */
+    void markViewed(Entry entry, CategoryTree tree) {
+        if (!this.unreadEntries.remove(entry)) return;
+
+        for (var categoryId : tree.containingCategories(entry)) {
+            this.unreadDescendantsByCategory.addTo(categoryId, -1);
+        }
+    }
+
+    int viewedEntriesGeneration() {
+        return this.viewedEntriesGeneration;
+    }
+
+    int visibleEntries() {
+        return this.visibleEntries;
+    }
+
+    /**
+     * @return The number of visible entries placed directly in {@code categoryId}
+     */
+    int visibleEntries(Identifier categoryId) {
+        return this.visibleEntriesByCategory.getInt(categoryId);
+    }
+
+    /**
+     * @return The number of visible entries in {@code categoryId} or any of its subcategories
+     */
+    int visibleDescendants(Identifier categoryId) {
+        return this.visibleDescendantsByCategory.getInt(categoryId);
+    }
+
+    /**
+     * @return The number of visible, unread entries in {@code categoryId} or any of its subcategories
+     */
+    int unreadDescendants(Identifier categoryId) {
+        return this.unreadDescendantsByCategory.getInt(categoryId);
+    }
+}
@@ -6,53 +6,68 @@ import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import io.wispforest.lavender.Lavender;
 import io.wispforest.lavender.client.LavenderClient;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Client-side storage of bookmarks, opened books and viewed entries. Every world
+ * is stored in its own file, which is loaded asynchronously once the client learns
+ * the id of the world it joined and unloaded again on disconnect. Until loading
+ * completes the storage appears empty, and any changes made in the meantime are
+ * merged into the loaded data
+ * <p>
+ * Viewed entries are stored as one bitset per book, indexing into a table of the
+ * ids of all entries of that book. The tables are shared by all worlds and kept
+ * in a separate file, which is loaded along with the first world
+ */
 public class LavenderClientStorage {
 
-    private static final TypeToken<Map<UUID, Map<Identifier, List<Bookmark>>>> BOOKMARKS_TYPE = new TypeToken<>() {};
-    private static Map<UUID, Map<Identifier, List<Bookmark>>> bookmarks;
+    private static final TypeToken<Map<Identifier, List<Bookmark>>> BOOKMARKS_TYPE = new TypeToken<>() {};
+    private static final TypeToken<Set<Identifier>> OPENED_BOOKS_TYPE = new TypeToken<>() {};
 
-    private static final TypeToken<Map<UUID, Set<Identifier>>> OPENED_BOOKS_TYPE = new TypeToken<>() {};
-    private static Map<UUID, Set<Identifier>> openedBooks;
+    private static final TypeToken<Map<Identifier, List<Identifier>>> ENTRY_IDS_TYPE = new TypeToken<>() {};
+    private static final TypeToken<Map<Identifier, long[]>> VIEWED_ENTRIES_TYPE = new TypeToken<>() {};
 
-    private static final TypeToken<Map<UUID, Map<Identifier, Set<Identifier>>>> VIEWED_ENTRIES_TYPE = new TypeToken<>() {};
-    private static Map<UUID, Map<Identifier, Set<Identifier>>> viewedEntries;
+    private static final TypeToken<Map<UUID, Map<Identifier, List<Bookmark>>>> LEGACY_BOOKMARKS_TYPE = new TypeToken<>() {};
+    private static final TypeToken<Map<UUID, Set<Identifier>>> LEGACY_OPENED_BOOKS_TYPE = new TypeToken<>() {};
+    private static final TypeToken<Map<UUID, Map<Identifier, Set<Identifier>>>> LEGACY_VIEWED_ENTRIES_TYPE = new TypeToken<>() {};
 
-    private static final Gson GSON = new GsonBuilder().registerTypeAdapter(Identifier.class, new Identifier.Serializer()).setPrettyPrinting().create();
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapter(Identifier.class, new Identifier.Serializer()).create();
 
-    static {
-        try {
-            var data = GSON.fromJson(Files.readString(storageFile()), JsonObject.class);
+    private static final long SAVE_DELAY_MILLIS = 1000;
+    private static final ScheduledExecutorService IO_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "Lavender Client Storage I/O");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-            bookmarks = GSON.fromJson(data.get("bookmarks"), BOOKMARKS_TYPE);
-            openedBooks = GSON.fromJson(data.get("opened_books"), OPENED_BOOKS_TYPE);
-            viewedEntries = GSON.fromJson(data.get("viewed_entries"), VIEWED_ENTRIES_TYPE);
+    private static @Nullable WorldStorage current = null;
+    private static int viewedEntriesGeneration = 0;
 
-            if (bookmarks == null) bookmarks = new HashMap<>();
-            if (openedBooks == null) openedBooks = new HashMap<>();
-            if (viewedEntries == null) viewedEntries = new HashMap<>();
-        } catch (Exception e) {
-            bookmarks = new HashMap<>();
-            openedBooks = new HashMap<>();
-            viewedEntries = new HashMap<>();
-            save();
-        }
-    }
+    // only assigned on the I/O thread while loading the first world, the
+    // tables themselves are only accessed on the client thread once published
+    private static volatile @Nullable EntryIdTables entryIds = null;
 
     public static List<Bookmark> getBookmarks(Book book) {
-        var worldBookmarks = bookmarks.get(LavenderClient.currentWorldId());
-        if (worldBookmarks == null) return List.of();
-
-        if (!worldBookmarks.containsKey(book.id())) return List.of();
-        return worldBookmarks.get(book.id());
+        return current().bookmarks(book.id());
     }
 
     public static void addBookmark(Book book, Entry entry) {
@@ -71,48 +86,494 @@ public class LavenderClientStorage {
     }
 
     private static List<Bookmark> getBookmarkList(Book book) {
-        return bookmarks.computeIfAbsent(LavenderClient.currentWorldId(), $ -> new HashMap<>()).computeIfAbsent(book.id(), $ -> new ArrayList<>());
+        return current().bookmarks.computeIfAbsent(book.id(), $ -> new ArrayList<>());
     }
 
     public static boolean wasBookOpened(Identifier book) {
-        return getOpenedBooksSet().contains(book);
+        return current().wasBookOpened(book);
     }
 
     public static void markBookOpened(Identifier book) {
-        getOpenedBooksSet().add(book);
-        save();
+        if (current().openedBooks.add(book)) save();
     }
 
     public static boolean wasEntryViewed(Book book, Entry entry) {
-        return viewedEntries.containsKey(LavenderClient.currentWorldId())
-                && viewedEntries.get(LavenderClient.currentWorldId()).containsKey(book.id())
-                && viewedEntries.get(LavenderClient.currentWorldId()).get(book.id()).contains(entry.id());
+        int ordinal = book.entryOrdinal(entry);
+        if (ordinal == -1) return wasEntryViewed(book.id(), entry.id());
+
+        return book.viewedEntries().get(ordinal);
     }
 
     public static void markEntryViewed(Book book, Entry entry) {
-        viewedEntries.computeIfAbsent(LavenderClient.currentWorldId(), $ -> new HashMap<>()).computeIfAbsent(book.id(), $ -> new HashSet<>()).add(entry.id());
+        var storage = current();
+
+        // index all entries of the book at once, so that the
+        // bits of its entries are assigned in the book's order
+        if (storage.entryIds.indexOf(book.id(), entry.id()) == -1) {
+            for (var bookEntry : book.entries()) storage.entryIds.indexOrAdd(book.id(), bookEntry.id());
+        }
+
+        if (!storage.markEntryViewed(book.id(), entry.id())) return;
+
+        book.onEntryViewed(entry);
         save();
     }
 
-    private static Set<Identifier> getOpenedBooksSet() {
-        return openedBooks.computeIfAbsent(LavenderClient.currentWorldId(), $ -> new HashSet<>());
+    static boolean wasEntryViewed(Identifier bookId, Identifier entryId) {
+        return current().wasEntryViewed(bookId, entryId);
+    }
+
+    /**
+     * @return A counter which changes whenever the set of viewed entries changed
+     * other than through {@link #markEntryViewed(Book, Entry)}, most notably
+     * when the storage of a different world was loaded
+     */
+    static int viewedEntriesGeneration() {
+        current();
+        return viewedEntriesGeneration;
+    }
+
+    // --- world loading ---
+
+    /**
+     * Start loading the storage of {@code worldId} in the background, unloading
+     * that of the previous world. Must be called on the client thread
+     */
+    @ApiStatus.Internal
+    public static void loadWorld(@Nullable UUID worldId) {
+        if (current != null && Objects.equals(current.worldId, worldId)) return;
+        unloadWorld();
+
+        var storage = current = new WorldStorage(worldId);
+        viewedEntriesGeneration++;
+
+        // changes made while loading already scheduled a save,
+        // which is postponed until the merged data is available
+        CompletableFuture.supplyAsync(() -> readWorld(worldId), IO_EXECUTOR).thenAcceptAsync(loaded -> {
+            storage.absorb(loaded);
+            if (current == storage) viewedEntriesGeneration++;
+        }, MinecraftClient.getInstance());
+    }
+
+    /**
+     * Write any pending changes of the current world's storage in
+     * the background and unload it. Must be called on the client thread
+     */
+    @ApiStatus.Internal
+    public static void unloadWorld() {
+        if (current == null) return;
+
+        var storage = current;
+        current = null;
+        viewedEntriesGeneration++;
+
+        if (!storage.saveScheduled || !storage.loaded) return;
+        IO_EXECUTOR.execute(prepareWrite(storage));
+    }
+
+    private static WorldStorage current() {
+        var worldId = LavenderClient.currentWorldId();
+        if (current == null || !Objects.equals(current.worldId, worldId)) loadWorld(worldId);
+
+        return current;
     }
 
+    private static WorldStorage readWorld(@Nullable UUID worldId) {
+        var entryIds = LavenderClientStorage.entryIds;
+        if (entryIds == null) {
+            entryIds = readEntryIds();
+            migrateLegacyStorage(entryIds);
+
+            LavenderClientStorage.entryIds = entryIds;
+        }
+
+        var file = worldFile(worldId);
+        if (!Files.exists(file)) return new WorldStorage(worldId, entryIds);
+
+        try {
+            return WorldStorage.deserialize(worldId, GSON.fromJson(Files.readString(file), JsonObject.class), entryIds);
+        } catch (Exception e) {
+            Lavender.LOGGER.warn("Failed to load Lavender client data of world {}", worldId, e);
+            return new WorldStorage(worldId, entryIds);
+        }
+    }
+
+    private static EntryIdTables readEntryIds() {
+        var file = entryIdsFile();
+        if (!Files.exists(file)) return new EntryIdTables();
+
+        try {
+            return EntryIdTables.deserialize(GSON.fromJson(Files.readString(file), JsonObject.class));
+        } catch (Exception e) {
+            // the bitsets of all worlds are discarded along with the tables, see WorldStorage#deserialize
+            Lavender.LOGGER.warn("Failed to load Lavender entry id tables, viewed entries will be reset", e);
+            return new EntryIdTables();
+        }
+    }
+
+    /**
+     * Split the storage file written by previous versions,
+     * which contained all worlds, into one file per world
+     */
+    private static void migrateLegacyStorage(EntryIdTables entryIds) {
+        var legacyFile = FabricLoader.getInstance().getConfigDir().resolve("lavender_client_storage.json");
+        if (!Files.exists(legacyFile)) return;
+
+        try {
+            var worlds = splitLegacyStorage(GSON.fromJson(Files.readString(legacyFile), JsonObject.class), entryIds);
+            if (entryIds.dirty) write(entryIdsFile(), entryIds.serialize());
+
+            worlds.forEach((worldId, storage) -> {
+                var file = worldFile(worldId);
+                if (!Files.exists(file)) write(file, storage.serialize());
+            });
+        } catch (Exception e) {
+            Lavender.LOGGER.warn("Failed to migrate legacy Lavender client data", e);
+        }
+
+        try {
+            Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".old"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Lavender.LOGGER.warn("Failed to move legacy Lavender client data out of the way", e);
+        }
+    }
+
+    /**
+     * Convert the contents of a legacy storage file, in which every
+     * property was keyed by world, into the storage of each world
+     */
+    static Map<UUID, WorldStorage> splitLegacyStorage(JsonObject data, EntryIdTables entryIds) {
+        var worlds = new HashMap<UUID, WorldStorage>();
+        Function<UUID, WorldStorage> storageFactory = worldId -> new WorldStorage(worldId, entryIds);
+
+        Map<UUID, Map<Identifier, List<Bookmark>>> bookmarks = GSON.fromJson(data.get("bookmarks"), LEGACY_BOOKMARKS_TYPE);
+        if (bookmarks != null) bookmarks.forEach((worldId, worldBookmarks) -> {
+            worlds.computeIfAbsent(worldId, storageFactory).bookmarks.putAll(worldBookmarks);
+        });
+
+        Map<UUID, Set<Identifier>> openedBooks = GSON.fromJson(data.get("opened_books"), LEGACY_OPENED_BOOKS_TYPE);
+        if (openedBooks != null) openedBooks.forEach((worldId, worldOpenedBooks) -> {
+            worlds.computeIfAbsent(worldId, storageFactory).openedBooks.addAll(worldOpenedBooks);
+        });
+
+        Map<UUID, Map<Identifier, Set<Identifier>>> viewedEntries = GSON.fromJson(data.get("viewed_entries"), LEGACY_VIEWED_ENTRIES_TYPE);
+        if (viewedEntries != null) viewedEntries.forEach((worldId, books) -> {
+            var storage = worlds.computeIfAbsent(worldId, storageFactory);
+            books.forEach((bookId, viewedIds) -> viewedIds.forEach(entryId -> storage.markEntryViewed(bookId, entryId)));
+        });
+
+        return worlds;
+    }
+
+    // --- saving ---
+
     private static void save() {
+        if (current != null) save(current);
+    }
+
+    /**
+     * Mark {@code storage} as dirty and schedule writing it to disk. Changes
+     * made before the write happens are coalesced into it. The data is serialized
+     * on the client thread once the delay elapsed, and written off-thread
+     */
+    private static void save(WorldStorage storage) {
+        if (storage.saveScheduled) return;
+        storage.saveScheduled = true;
+
+        var client = MinecraftClient.getInstance();
+        storage.pendingSave = IO_EXECUTOR.schedule(() -> client.execute(() -> {
+            // already written by a flush or while unloading
+            if (!storage.saveScheduled) return;
+
+            if (!storage.loaded) {
+                storage.saveScheduled = false;
+                save(storage);
+                return;
+            }
+
+            IO_EXECUTOR.execute(prepareWrite(storage));
+        }), SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Immediately write all pending changes to disk, blocking until done.
+     * Must be called on the client thread
+     */
+    public static void flush() {
+        if (current == null) return;
+
+        var storage = current;
+        if (storage.pendingSave != null) storage.pendingSave.cancel(false);
+
+        // writes which are already queued hold older data, so they
+        // must complete before the current data is written below
         try {
+            IO_EXECUTOR.submit(() -> {}).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Lavender.LOGGER.warn("Failed to wait for pending Lavender client data writes", e);
+        }
+
+        if (!storage.saveScheduled || !storage.loaded) return;
+        prepareWrite(storage).run();
+    }
+
+    /**
+     * Serialize {@code storage}, as well as the entry id tables if they changed.
+     * Must be called on the client thread, the returned task writes the data
+     */
+    private static Runnable prepareWrite(WorldStorage storage) {
+        var entryIdData = storage.entryIds.dirty ? storage.entryIds.serialize() : null;
+        var data = storage.serialize();
+
+        return () -> {
+            // the tables are written first, since the world's bitsets index into them
+            if (entryIdData != null) write(entryIdsFile(), entryIdData);
+            write(worldFile(storage.worldId), data);
+        };
+    }
+
+    static void write(Path file, JsonObject data) {
+        synchronized (IO_EXECUTOR) {
+            try {
+                Files.createDirectories(file.getParent());
+
+                var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.writeString(tempFile, GSON.toJson(data));
+
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                Lavender.LOGGER.warn("Failed to save Lavender client data", e);
+            }
+        }
+    }
+
+    private static Path worldFile(@Nullable UUID worldId) {
+        return storageDirectory().resolve((worldId != null ? worldId.toString() : "unknown_world") + ".json");
+    }
+
+    private static Path entryIdsFile() {
+        return storageDirectory().resolve("entry_ids.json");
+    }
+
+    private static Path storageDirectory() {
+        return FabricLoader.getInstance().getConfigDir().resolve("lavender_client_storage");
+    }
+
+    /**
+     * The stored data of a single world. Only ever
+     * accessed on the client thread once published
+     */
+    static final class WorldStorage {
+        private final @Nullable UUID worldId;
+
+        private Map<Identifier, List<Bookmark>> bookmarks = new HashMap<>();
+        private Set<Identifier> openedBooks = new HashSet<>();
+        private EntryIdTables entryIds;
+        private Map<Identifier, BitSet> viewedEntries = new HashMap<>();
+
+        private boolean saveScheduled = false;
+        private @Nullable ScheduledFuture<?> pendingSave = null;
+        private boolean loaded = false;
+
+        /**
+         * Create an empty storage which indexes into tables of its own,
+         * until it {@linkplain #absorb(WorldStorage) absorbs} the loaded data
+         */
+        WorldStorage(@Nullable UUID worldId) {
+            this(worldId, new EntryIdTables());
+        }
+
+        WorldStorage(@Nullable UUID worldId, EntryIdTables entryIds) {
+            this.worldId = worldId;
+            this.entryIds = entryIds;
+        }
+
+        boolean wasBookOpened(Identifier bookId) {
+            return this.openedBooks.contains(bookId);
+        }
+
+        List<Bookmark> bookmarks(Identifier bookId) {
+            return this.bookmarks.getOrDefault(bookId, List.of());
+        }
+
+        boolean wasEntryViewed(Identifier bookId, Identifier entryId) {
+            int entryIndex = this.entryIds.indexOf(bookId, entryId);
+            if (entryIndex == -1) return false;
+
+            var viewed = this.viewedEntries.get(bookId);
+            return viewed != null && viewed.get(entryIndex);
+        }
+
+        /**
+         * @return {@code true} if the entry had not been viewed before
+         */
+        boolean markEntryViewed(Identifier bookId, Identifier entryId) {
+            var entryIndex = this.entryIds.indexOrAdd(bookId, entryId);
+            var viewed = this.viewedEntries.computeIfAbsent(bookId, $ -> new BitSet());
+
+            if (viewed.get(entryIndex)) return false;
+
+            viewed.set(entryIndex);
+            return true;
+        }
+
+        /**
+         * Adopt the data loaded from disk and re-apply all changes made to
+         * this storage while it was loading on top of it
+         */
+        void absorb(WorldStorage loaded) {
+            var changes = new WorldStorage(this.worldId);
+            changes.bookmarks = this.bookmarks;
+            changes.openedBooks = this.openedBooks;
+            changes.entryIds = this.entryIds;
+            changes.viewedEntries = this.viewedEntries;
+
+            this.bookmarks = loaded.bookmarks;
+            this.openedBooks = loaded.openedBooks;
+            this.entryIds = loaded.entryIds;
+            this.viewedEntries = loaded.viewedEntries;
+            this.loaded = true;
+
+            // without any changes these are all empty, which
+            // makes merging them independent of the save state
+            changes.bookmarks.forEach((bookId, bookmarks) -> this.bookmarks.computeIfAbsent(bookId, $ -> new ArrayList<>()).addAll(bookmarks));
+            this.openedBooks.addAll(changes.openedBooks);
+            changes.viewedEntries.forEach((bookId, viewed) -> {
+                viewed.stream().forEach(entryIndex -> this.markEntryViewed(bookId, changes.entryIds.idAt(bookId, entryIndex)));
+            });
+        }
+
+        JsonObject serialize() {
+            this.saveScheduled = false;
+
             var data = new JsonObject();
-            data.add("bookmarks", GSON.toJsonTree(bookmarks, BOOKMARKS_TYPE.getType()));
-            data.add("opened_books", GSON.toJsonTree(openedBooks, OPENED_BOOKS_TYPE.getType()));
-            data.add("viewed_entries", GSON.toJsonTree(viewedEntries, VIEWED_ENTRIES_TYPE.getType()));
+            data.add("bookmarks", GSON.toJsonTree(this.bookmarks, BOOKMARKS_TYPE.getType()));
+            data.add("opened_books", GSON.toJsonTree(this.openedBooks, OPENED_BOOKS_TYPE.getType()));
 
-            Files.writeString(storageFile(), GSON.toJson(data));
-        } catch (IOException e) {
-            Lavender.LOGGER.warn("Failed to save Lavender client data", e);
+            data.addProperty("entry_ids", this.entryIds.id.toString());
+
+            var entries = new HashMap<Identifier, long[]>();
+            this.viewedEntries.forEach((bookId, viewed) -> entries.put(bookId, viewed.toLongArray()));
+            data.add("viewed_entries", GSON.toJsonTree(entries, VIEWED_ENTRIES_TYPE.getType()));
+
+            return data;
+        }
+
+        /**
+         * @param entryIds The tables the stored bitsets index into
+         */
+        static WorldStorage deserialize(@Nullable UUID worldId, JsonObject data, EntryIdTables entryIds) {
+            var storage = new WorldStorage(worldId, entryIds);
+
+            Map<Identifier, List<Bookmark>> bookmarks = GSON.fromJson(data.get("bookmarks"), BOOKMARKS_TYPE);
+            if (bookmarks != null) bookmarks.forEach((bookId, bookBookmarks) -> storage.bookmarks.put(bookId, new ArrayList<>(bookBookmarks)));
+
+            Set<Identifier> openedBooks = GSON.fromJson(data.get("opened_books"), OPENED_BOOKS_TYPE);
+            if (openedBooks != null) storage.openedBooks.addAll(openedBooks);
+
+            // bitsets which index into a different set of tables cannot be
+            // interpreted, which happens if the file of the tables was lost
+            var tablesId = data.get("entry_ids");
+            if (tablesId == null || !tablesId.getAsString().equals(entryIds.id.toString())) return storage;
+
+            Map<Identifier, long[]> entries = GSON.fromJson(data.get("viewed_entries"), VIEWED_ENTRIES_TYPE);
+            if (entries != null) entries.forEach((bookId, bits) -> storage.viewedEntries.put(bookId, BitSet.valueOf(bits)));
+
+            return storage;
         }
     }
 
-    private static Path storageFile() {
-        return FabricLoader.getInstance().getConfigDir().resolve("lavender_client_storage.json");
+    /**
+     * The id tables of all books, shared by the storage of every world. Only
+     * accessed on the client thread once published
+     */
+    static final class EntryIdTables {
+        private final UUID id;
+        private final Map<Identifier, EntryIdTable> tables = new HashMap<>();
+        private boolean dirty = false;
+
+        EntryIdTables() {
+            this(UUID.randomUUID());
+        }
+
+        private EntryIdTables(UUID id) {
+            this.id = id;
+        }
+
+        int indexOf(Identifier bookId, Identifier entryId) {
+            var table = this.tables.get(bookId);
+            return table != null ? table.indexOf(entryId) : -1;
+        }
+
+        int indexOrAdd(Identifier bookId, Identifier entryId) {
+            var table = this.tables.computeIfAbsent(bookId, $ -> new EntryIdTable());
+
+            int size = table.ids.size();
+            int index = table.indexOrAdd(entryId);
+            if (table.ids.size() != size) this.dirty = true;
+
+            return index;
+        }
+
+        Identifier idAt(Identifier bookId, int index) {
+            return this.tables.get(bookId).ids.get(index);
+        }
+
+        JsonObject serialize() {
+            this.dirty = false;
+
+            var ids = new HashMap<Identifier, List<Identifier>>();
+            this.tables.forEach((bookId, table) -> ids.put(bookId, table.ids));
+
+            var data = new JsonObject();
+            data.addProperty("id", this.id.toString());
+            data.add("entry_ids", GSON.toJsonTree(ids, ENTRY_IDS_TYPE.getType()));
+            return data;
+        }
+
+        static EntryIdTables deserialize(JsonObject data) {
+            var tables = new EntryIdTables(UUID.fromString(data.get("id").getAsString()));
+
+            Map<Identifier, List<Identifier>> ids = GSON.fromJson(data.get("entry_ids"), ENTRY_IDS_TYPE);
+            if (ids != null) ids.forEach((bookId, bookIds) -> tables.tables.put(bookId, new EntryIdTable(bookIds)));
+
+            return tables;
+        }
+    }
+
+    /**
+     * An append-only table assigning each entry id a stable index,
+     * so that entries keep their bit even if the book's content changes
+     */
+    private static final class EntryIdTable {
+        private final List<Identifier> ids = new ArrayList<>();
+        private final Object2IntOpenHashMap<Identifier> indices = new Object2IntOpenHashMap<>();
+
+        private EntryIdTable() {
+            this.indices.defaultReturnValue(-1);
+        }
+
+        private EntryIdTable(List<Identifier> ids) {
+            this();
+            ids.forEach(this::indexOrAdd);
+        }
+
+        private int indexOf(Identifier id) {
+            return this.indices.getInt(id);
+        }
+
+        private int indexOrAdd(Identifier id) {
+            int index = this.indices.getInt(id);
+            if (index != -1) return index;
+
+            this.ids.add(id);
+            this.indices.put(id, this.ids.size() - 1);
+            return this.ids.size() - 1;
+        }
     }
 
     public record Bookmark(Type type, Identifier id) {
@@ -127,4 +588,4 @@ public class LavenderClientStorage {
             };
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package io.wispforest.lavender.book;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The markdown body of an entry or category. Bodies loaded from book
+ * resources are not kept on the heap permanently - instead, the most recently
+ * used ones are held in a small bounded cache while all others are only
+ * softly referenced and loaded again on demand once they were collected.
+ * <p>
+ * The bounded cache is shared by all contents but only locked while it is
+ * looked up or updated - loading a body happens outside of it, so that
+ * threads loading different bodies never wait for each other
+ */
+public final class LazyContent {
+
+    private static final int MAX_RECENT_CONTENTS = 32;
+
+    private static final Map<LazyContent, String> RECENT_CONTENTS = new LinkedHashMap<>(MAX_RECENT_CONTENTS, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LazyContent, String> eldest) {
+            return this.size() > MAX_RECENT_CONTENTS;
+        }
+    };
+
+    private final @Nullable Supplier<String> loader;
+    private final @Nullable String content;
+
+    private final Object loadLock = new Object();
+    private SoftReference<String> loadedContent;
+
+    private LazyContent(@Nullable Supplier<String> loader, @Nullable String content) {
+        this.loader = loader;
+        this.content = content;
+        this.loadedContent = new SoftReference<>(null);
+    }
+
+    /**
+     * Create content which is always held in memory
+     */
+    public static LazyContent of(String content) {
+        return new LazyContent(null, content);
+    }
+
+    /**
+     * Create content which is loaded by {@code loader} when it is first
+     * requested, and again whenever it is requested after being evicted
+     */
+    static LazyContent load(Supplier<String> loader) {
+        return new LazyContent(loader, null);
+    }
+
+    public String get() {
+        if (this.content != null) return this.content;
+
+        synchronized (RECENT_CONTENTS) {
+            var content = RECENT_CONTENTS.get(this);
+            if (content != null) return content;
+        }
+
+        String content;
+        synchronized (this.loadLock) {
+            content = this.loadedContent.get();
+            if (content == null) {
+                content = this.loader.get();
+                this.loadedContent = new SoftReference<>(content);
+            }
+        }
+
+        synchronized (RECENT_CONTENTS) {
+            RECENT_CONTENTS.put(this, content);
+        }
+
+        return content;
+    }
+
+    /**
+     * Drop all strong references to recently used contents, leaving
+     * them to be collected whenever memory runs low
+     */
+    public static void evictRecent() {
+        synchronized (RECENT_CONTENTS) {
+            RECENT_CONTENTS.clear();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.collect.Multimap;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable snapshot of the links between a book's entries and categories. A
+ * page is considered to link to everything it references through {@code ^} links,
+ * to the entries associated with items it displays and, by way of the book's navigation,
+ * to the entries of a category or the entry following it in its category. Only the
+ * former two are recorded as backlinks of their target.
+ * <p>
+ * The links of every page are extracted once when its content is loaded,
+ * the book rebuilds the graph itself on the first query after its contents changed
+ */
+final class LinkGraph {
+
+    private static final Identifier[] NO_LINKS = new Identifier[0];
+
+    private static final Pattern LINK_PATTERN = Pattern.compile("]\\(\\^([^)#\\s]+)");
+    private static final Pattern ITEM_PATTERN = Pattern.compile("<item;([^>{]+)");
+
+    private final Map<Identifier, Identifier[]> outgoingLinks;
+    private final Map<Identifier, Identifier[]> backlinks;
+
+    private LinkGraph(Map<Identifier, Identifier[]> outgoingLinks, Map<Identifier, Identifier[]> backlinks) {
+        this.outgoingLinks = outgoingLinks;
+        this.backlinks = backlinks;
+    }
+
+    static LinkGraph build(
+            Map<Identifier, Links> links,
+            Map<Identifier, Entry> entriesById,
+            Map<Identifier, Category> categories,
+            Map<Identifier, List<Entry>> entriesByCategory,
+            Multimap<Item, Entry> entriesByAssociatedItem
+    ) {
+        var outgoing = new HashMap<Identifier, Set<Identifier>>();
+        var incoming = new HashMap<Identifier, Set<Identifier>>();
+
+        links.forEach((sourceId, sourceLinks) -> {
+            var targets = outgoing.computeIfAbsent(sourceId, $ -> new LinkedHashSet<>());
+
+            for (var target : sourceLinks.targets) {
+                if (target.equals(sourceId) || (!entriesById.containsKey(target) && !categories.containsKey(target))) continue;
+                targets.add(target);
+            }
+
+            for (var item : sourceLinks.items) {
+                for (var entry : entriesByAssociatedItem.get(item)) {
+                    if (!entry.id().equals(sourceId)) targets.add(entry.id());
+                }
+            }
+
+            for (var target : targets) {
+                incoming.computeIfAbsent(target, $ -> new LinkedHashSet<>()).add(sourceId);
+            }
+        });
+
+        // navigation links are added last, so that explicit
+        // links remain the most likely ones to be followed
+        entriesByCategory.forEach((categoryId, entries) -> {
+            var sortedEntries = new ArrayList<>(entries);
+            sortedEntries.sort(Comparator.comparingInt(Entry::ordinal).thenComparing(Entry::id));
+
+            var categoryTargets = outgoing.computeIfAbsent(categoryId, $ -> new LinkedHashSet<>());
+            for (int i = 0; i < sortedEntries.size(); i++) {
+                categoryTargets.add(sortedEntries.get(i).id());
+
+                if (i + 1 == sortedEntries.size()) continue;
+                outgoing.computeIfAbsent(sortedEntries.get(i).id(), $ -> new LinkedHashSet<>()).add(sortedEntries.get(i + 1).id());
+            }
+        });
+
+        return new LinkGraph(toArrays(outgoing), toArrays(incoming));
+    }
+
+    private static Map<Identifier, Identifier[]> toArrays(Map<Identifier, Set<Identifier>> links) {
+        var result = new HashMap<Identifier, Identifier[]>(links.size());
+        links.forEach((id, targets) -> {
+            if (!targets.isEmpty()) result.put(id, targets.toArray(Identifier[]::new));
+        });
+
+        return result;
+    }
+
+    /**
+     * @return The entries and categories linked from the page {@code sourceId},
+     * most likely followed first. The returned array must not be modified
+     */
+    Identifier[] outgoingLinks(Identifier sourceId) {
+        return this.outgoingLinks.getOrDefault(sourceId, NO_LINKS);
+    }
+
+    /**
+     * @return The entries and categories whose pages link to {@code targetId}
+     * or display an item associated with it. The returned array must not be modified
+     */
+    Identifier[] backlinks(Identifier targetId) {
+        return this.backlinks.getOrDefault(targetId, NO_LINKS);
+    }
+
+    /**
+     * The references of a single page, as written in its markdown
+     *
+     * @param targets The targets of all {@code ^} links, which may not exist in the book
+     * @param items   All items which the page displays
+     */
+    record Links(Identifier[] targets, Item[] items) {
+
+        static final Links NONE = new Links(NO_LINKS, new Item[0]);
+
+        static Links extract(String markdown) {
+            var targets = new LinkedHashSet<Identifier>();
+            var linkMatcher = LINK_PATTERN.matcher(markdown);
+            while (linkMatcher.find()) {
+                var target = Identifier.tryParse(linkMatcher.group(1));
+                if (target != null) targets.add(target);
+            }
+
+            var items = new LinkedHashSet<Item>();
+            var itemMatcher = ITEM_PATTERN.matcher(markdown);
+            while (itemMatcher.find()) {
+                var itemId = Identifier.tryParse(itemMatcher.group(1).strip());
+                if (itemId == null) continue;
+
+                Registries.ITEM.getOrEmpty(itemId).ifPresent(items::add);
+            }
+
+            if (targets.isEmpty() && items.isEmpty()) return NONE;
+            return new Links(targets.toArray(Identifier[]::new), items.toArray(Item[]::new));
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package io.wispforest.lavender.book;
+
+import io.wispforest.lavender.Lavender;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled form of a book's macro table. All macro names are matched
+ * simultaneously by an Aho-Corasick automaton, which means that every invocation
+ * at the current nesting depth is expanded in a single left-to-right pass over
+ * the input. Circular macros are detected once, when the expander is built
+ */
+final class MacroExpander {
+
+    // every pass expands one level of nesting, which depends on the input rather than
+    // the macro table. invocations of circular macros are caught before this limit is
+    // ever reached, it only stops expansions which keep assembling new invocations
+    // from the text around them
+    private static final int MAX_PASSES = 1000;
+
+    private static final String EXPANSION_FAILED_CONTENT = """
+            {red}**Entry processing failed:**{}
+
+
+            Macro expansion ran into a circular macro
+            invocation and could not complete
+            """;
+
+    private final Identifier bookId;
+
+    // the text matched for each macro - parametrized
+    // macros include their opening parenthesis
+    private final String[] names;
+    private final String[] replacements;
+    private final Book.Macro[] macros;
+    private final int[] argCounts;
+    private final boolean[] circular;
+
+    // for each macro, the longest other macro whose name is a
+    // proper prefix of its own, or -1 if there is none
+    private final int[] prefixMacros;
+
+    // --- automaton ---
+
+    private final Long2IntOpenHashMap transitions = new Long2IntOpenHashMap();
+    private final IntArrayList failureLinks = new IntArrayList();
+    private final IntArrayList depths = new IntArrayList();
+    private final IntArrayList terminals = new IntArrayList();
+    private final IntArrayList longestOutputs = new IntArrayList();
+    private final IntArrayList outputLinks = new IntArrayList();
+
+    MacroExpander(Identifier bookId, Map<String, String> zeroArgMacros, Map<String, Book.Macro> parametrizedMacros) {
+        this.bookId = bookId;
+        this.transitions.defaultReturnValue(-1);
+
+        int macroCount = zeroArgMacros.size() + parametrizedMacros.size();
+        this.names = new String[macroCount];
+        this.replacements = new String[macroCount];
+        this.macros = new Book.Macro[macroCount];
+        this.argCounts = new int[macroCount];
+        this.circular = new boolean[macroCount];
+        this.prefixMacros = new int[macroCount];
+
+        int macroIdx = 0;
+        for (var macro : zeroArgMacros.entrySet()) {
+            this.names[macroIdx] = macro.getKey();
+            this.replacements[macroIdx] = macro.getValue();
+            macroIdx++;
+        }
+
+        for (var macro : parametrizedMacros.entrySet()) {
+            this.names[macroIdx] = macro.getKey() + "(";
+            this.macros[macroIdx] = macro.getValue();
+            this.argCounts[macroIdx] = macro.getValue().argCount();
+            macroIdx++;
+        }
+
+        this.buildAutomaton();
+        this.findPrefixMacros();
+        this.findCircularMacros();
+    }
+
+    /**
+     * Expand all macro invocations in {@code input}, repeating until
+     * the result contains no more invocations
+     */
+    String expand(Identifier entry, String input) {
+        var current = input;
+
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            var expanded = this.expandOnce(current);
+            if (expanded == null) return this.expansionFailed(entry);
+            if (expanded == current) return current;
+
+            current = expanded;
+        }
+
+        return this.expansionFailed(entry);
+    }
+
+    /**
+     * @return {@code input} itself if it contains no invocations, the
+     * result of expanding all of them otherwise, or {@code null} if a
+     * circular macro was invoked
+     */
+    private String expandOnce(String input) {
+        StringBuilder result = null;
+        int copiedUntil = 0;
+
+        int state = 0;
+        int candidate = -1, candidateStart = -1;
+
+        for (int i = 0; i < input.length(); i++) {
+            state = this.step(state, input.charAt(i));
+
+            int match = this.longestOutputs.getInt(state);
+            if (match != -1) {
+                int matchStart = i + 1 - this.names[match].length();
+
+                // the longest output of the current state always starts earliest,
+                // later outputs with the same start are longer than earlier ones
+                if (candidate == -1 || matchStart <= candidateStart) {
+                    candidate = match;
+                    candidateStart = matchStart;
+                }
+            }
+
+            // a later match can only begin at or before the candidate
+            // if the current state still reaches back that far
+            if (candidate == -1 || (i + 1 - this.depths.getInt(state) <= candidateStart && i != input.length() - 1)) {
+                continue;
+            }
+
+            int invocationEnd = -1;
+            String replacement = null;
+
+            // if the invocation of a parametrized macro is not well-formed,
+            // fall back to shorter macros matching at the same position
+            while (candidate != -1) {
+                if (this.macros[candidate] == null) {
+                    invocationEnd = candidateStart + this.names[candidate].length();
+                    replacement = this.replacements[candidate];
+                    break;
+                }
+
+                var args = new ArrayList<String>(this.argCounts[candidate]);
+                invocationEnd = readArguments(input, candidateStart + this.names[candidate].length(), this.argCounts[candidate], args);
+                if (invocationEnd != -1) {
+                    replacement = this.macros[candidate].apply(args);
+                    break;
+                }
+
+                candidate = this.prefixMacros[candidate];
+            }
+
+            if (replacement != null) {
+                if (this.circular[candidate]) return null;
+
+                if (result == null) result = new StringBuilder(input.length());
+                result.append(input, copiedUntil, candidateStart).append(replacement);
+
+                copiedUntil = invocationEnd;
+                i = invocationEnd - 1;
+            } else {
+                // no macro could be invoked here, look for other
+                // matches starting after its first character
+                i = candidateStart;
+            }
+
+            state = 0;
+            candidate = -1;
+        }
+
+        if (result == null) return input;
+        return result.append(input, copiedUntil, input.length()).toString();
+    }
+
+    /**
+     * Read the argument list of a parametrized macro invocation, starting
+     * just after its opening parenthesis. Parentheses inside arguments must be
+     * balanced unless they are escaped, and {@code \\,} inserts a literal comma.
+     * Any unescaped commas beyond {@code argCount} become part of the last argument.
+     * <p>
+     * Escapes are only resolved outside of nested parentheses, those inside
+     * are left for the invocation they belong to, which is expanded later.
+     * <p>
+     * Invocations cannot span multiple lines
+     *
+     * @return The index just after the closing parenthesis of the invocation, or
+     * {@code -1} if it is not terminated or supplies less than {@code argCount} arguments
+     */
+    private static int readArguments(String input, int argsStart, int argCount, List<String> args) {
+        var arg = new StringBuilder();
+        int depth = 0;
+
+        for (int i = argsStart; i < input.length(); i++) {
+            char c = input.charAt(i);
+
+            if (c == '\\' && i + 1 < input.length() && isEscapable(input.charAt(i + 1))) {
+                if (depth > 0) arg.append(c);
+                arg.append(input.charAt(++i));
+            } else if (c == '(') {
+                depth++;
+                arg.append(c);
+            } else if (c == ')') {
+                if (depth == 0) {
+                    args.add(arg.toString());
+                    return args.size() >= argCount ? i + 1 : -1;
+                }
+
+                depth--;
+                arg.append(c);
+            } else if (c == ',' && depth == 0 && args.size() < argCount - 1) {
+                args.add(arg.toString());
+                arg.setLength(0);
+            } else if (c == '\n') {
+                return -1;
+            } else {
+                arg.append(c);
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isEscapable(char c) {
+        return c == ',' || c == '(' || c == ')';
+    }
+
+    private String expansionFailed(Identifier entry) {
+        Lavender.LOGGER.warn(
+                "Preprocessing of entry {} in book {} failed: Macro expansion encountered a circular macro invocation",
+                entry,
+                this.bookId
+        );
+
+        return EXPANSION_FAILED_CONTENT;
+    }
+
+    // --- construction ---
+
+    private void buildAutomaton() {
+        this.addState(0);
+
+        for (int macroIdx = 0; macroIdx < this.names.length; macroIdx++) {
+            var name = this.names[macroIdx];
+
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                long key = transitionKey(state, name.charAt(i));
+
+                int next = this.transitions.get(key);
+                if (next == -1) {
+                    next = this.addState(this.depths.getInt(state) + 1);
+                    this.transitions.put(key, next);
+                }
+
+                state = next;
+            }
+
+            this.terminals.set(state, macroIdx);
+        }
+
+        // breadth-first, so that failure links always
+        // point to states which are already complete
+        var children = new ArrayList<IntArrayList>();
+        for (int i = 0; i < this.depths.size(); i++) children.add(new IntArrayList());
+
+        var edgeChars = new ArrayList<IntArrayList>();
+        for (int i = 0; i < this.depths.size(); i++) edgeChars.add(new IntArrayList());
+
+        for (var transition : this.transitions.long2IntEntrySet()) {
+            int from = (int) (transition.getLongKey() >>> 16);
+            children.get(from).add(transition.getIntValue());
+            edgeChars.get(from).add((int) (transition.getLongKey() & 0xFFFF));
+        }
+
+        var queue = new IntArrayList();
+        queue.add(0);
+
+        for (int queueIdx = 0; queueIdx < queue.size(); queueIdx++) {
+            int state = queue.getInt(queueIdx);
+
+            for (int childIdx = 0; childIdx < children.get(state).size(); childIdx++) {
+                int child = children.get(state).getInt(childIdx);
+                char edge = (char) edgeChars.get(state).getInt(childIdx);
+
+                int failure = state == 0 ? 0 : this.step(this.failureLinks.getInt(state), edge);
+                this.failureLinks.set(child, failure);
+
+                this.outputLinks.set(child, this.terminals.getInt(failure) != -1 ? failure : this.outputLinks.getInt(failure));
+                this.longestOutputs.set(child, this.terminals.getInt(child) != -1 ? this.terminals.getInt(child) : this.longestOutputs.getInt(failure));
+
+                queue.add(child);
+            }
+        }
+    }
+
+    private void findPrefixMacros() {
+        for (int macroIdx = 0; macroIdx < this.names.length; macroIdx++) {
+            var name = this.names[macroIdx];
+            this.prefixMacros[macroIdx] = -1;
+
+            // the path of every name through the trie
+            // passes the terminals of all its prefixes
+            int state = 0;
+            for (int i = 0; i < name.length() - 1; i++) {
+                state = this.transitions.get(transitionKey(state, name.charAt(i)));
+                if (this.terminals.getInt(state) != -1) this.prefixMacros[macroIdx] = this.terminals.getInt(state);
+            }
+        }
+    }
+
+    private int addState(int depth) {
+        this.depths.add(depth);
+        this.failureLinks.add(0);
+        this.terminals.add(-1);
+        this.longestOutputs.add(-1);
+        this.outputLinks.add(-1);
+        return this.depths.size() - 1;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = this.transitions.get(transitionKey(state, c));
+            if (next != -1) return next;
+            if (state == 0) return 0;
+
+            state = this.failureLinks.getInt(state);
+        }
+    }
+
+    private static long transitionKey(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    /**
+     * Build the graph of which macros can invoke which other macros
+     * and mark every macro from which a cycle can be reached
+     */
+    private void findCircularMacros() {
+        var invokedBy = new ArrayList<IntArrayList>();
+        for (int i = 0; i < this.names.length; i++) invokedBy.add(new IntArrayList());
+
+        var remainingInvocations = new int[this.names.length];
+        for (int macroIdx = 0; macroIdx < this.names.length; macroIdx++) {
+            var invoked = new boolean[this.names.length];
+
+            int state = 0;
+            for (var part : this.expansionTemplate(macroIdx)) {
+                for (int i = 0; i < part.length(); i++) {
+                    state = this.step(state, part.charAt(i));
+
+                    for (int output = state; output != -1; output = this.outputLinks.getInt(output)) {
+                        if (this.terminals.getInt(output) != -1) invoked[this.terminals.getInt(output)] = true;
+                    }
+                }
+
+                // argument placeholders separate the parts
+                state = 0;
+            }
+
+            for (int invokedIdx = 0; invokedIdx < invoked.length; invokedIdx++) {
+                if (!invoked[invokedIdx]) continue;
+
+                invokedBy.get(invokedIdx).add(macroIdx);
+                remainingInvocations[macroIdx]++;
+            }
+        }
+
+        // peel off every macro that (transitively) only invokes
+        // macros which terminate - whatever remains reaches a cycle
+        var terminating = new IntArrayList();
+        for (int macroIdx = 0; macroIdx < this.names.length; macroIdx++) {
+            if (remainingInvocations[macroIdx] == 0) terminating.add(macroIdx);
+        }
+
+        for (int i = 0; i < terminating.size(); i++) {
+            var invokers = invokedBy.get(terminating.getInt(i));
+            for (int invokerIdx = 0; invokerIdx < invokers.size(); invokerIdx++) {
+                int invoker = invokers.getInt(invokerIdx);
+                if (--remainingInvocations[invoker] == 0) terminating.add(invoker);
+            }
+        }
+
+        var circularNames = new ArrayList<String>();
+        for (int macroIdx = 0; macroIdx < this.names.length; macroIdx++) {
+            if (remainingInvocations[macroIdx] == 0) continue;
+
+            this.circular[macroIdx] = true;
+            circularNames.add(this.macros[macroIdx] != null ? this.names[macroIdx].substring(0, this.names[macroIdx].length() - 1) : this.names[macroIdx]);
+        }
+
+        if (!circularNames.isEmpty()) {
+            Lavender.LOGGER.warn("Macros {} in book {} form a circular invocation, entries which use them will fail to load", circularNames, this.bookId);
+        }
+    }
+
+    private List<String> expansionTemplate(int macroIdx) {
+        return this.macros[macroIdx] != null
+                ? this.macros[macroIdx].parts()
+                : List.of(this.replacements[macroIdx]);
+    }
+}
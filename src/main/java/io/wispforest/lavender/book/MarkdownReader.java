@@ -0,0 +1,142 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.CountingInputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single-pass reader for book markdown resources, which consist of a
+ * {@code ```json} fenced frontmatter block followed by the markdown body.
+ * Line endings are normalized to {@code \n} while reading, and the frontmatter
+ * can be inspected before deciding whether the body should be read at all.
+ * <p>
+ * All bytes that pass through this reader are hashed, the resulting
+ * hash is available once the body has been read
+ */
+final class MarkdownReader implements Closeable {
+
+    private static final String FRONTMATTER_START = "```json";
+    private static final String FRONTMATTER_END = "```";
+
+    private final HashingInputStream input;
+    private final CountingInputStream counter;
+    private final Reader reader;
+
+    private int pushedBack = -1;
+    private boolean bodyRead = false;
+
+    MarkdownReader(InputStream input) {
+        this.input = new HashingInputStream(Hashing.murmur3_128(), input);
+        this.counter = new CountingInputStream(this.input);
+        this.reader = new InputStreamReader(this.counter, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the frontmatter block at the start of the resource,
+     * which must be the first thing read from this reader
+     *
+     * @return The raw JSON content of the frontmatter
+     */
+    String readFrontmatter() throws IOException {
+        int c = this.skipWhitespace();
+
+        for (int i = 0; i < FRONTMATTER_START.length(); i++, c = this.read()) {
+            if (c != FRONTMATTER_START.charAt(i)) throw new IOException("Missing markdown meta");
+        }
+
+        this.pushedBack = c;
+
+        var frontmatter = new StringBuilder();
+        while ((c = this.read()) != -1) {
+            frontmatter.append((char) c);
+
+            if (endsWith(frontmatter, FRONTMATTER_END)) {
+                frontmatter.setLength(frontmatter.length() - FRONTMATTER_END.length());
+                return frontmatter.toString();
+            }
+        }
+
+        throw new IOException("Unterminated markdown meta");
+    }
+
+    /**
+     * Read the remainder of the resource after the frontmatter, without
+     * any leading or trailing whitespace
+     */
+    String readBody() throws IOException {
+        var body = new StringBuilder();
+
+        int c = this.skipWhitespace();
+        while (c != -1) {
+            body.append((char) c);
+            c = this.read();
+        }
+
+        int end = body.length();
+        while (end > 0 && Character.isWhitespace(body.charAt(end - 1))) end--;
+        body.setLength(end);
+
+        this.bodyRead = true;
+        return body.toString();
+    }
+
+    /**
+     * @return The hash of all bytes of the resource
+     */
+    HashCode hash() {
+        if (!this.bodyRead) throw new IllegalStateException("The hash of a markdown resource is only available once its body has been read");
+        return this.input.hash();
+    }
+
+    /**
+     * @return The number of bytes consumed from the underlying stream so far
+     */
+    long bytesRead() {
+        return this.counter.getCount();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = this.read();
+        } while (c != -1 && Character.isWhitespace(c));
+
+        return c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (this.pushedBack != -1) {
+            c = this.pushedBack;
+            this.pushedBack = -1;
+        } else {
+            c = this.reader.read();
+        }
+
+        if (c != '\r') return c;
+
+        int next = this.reader.read();
+        if (next != '\n') this.pushedBack = next;
+
+        return '\n';
+    }
+
+    private static boolean endsWith(StringBuilder builder, String suffix) {
+        if (builder.length() < suffix.length()) return false;
+
+        for (int i = 0; i < suffix.length(); i++) {
+            if (builder.charAt(builder.length() - suffix.length() + i) != suffix.charAt(i)) return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
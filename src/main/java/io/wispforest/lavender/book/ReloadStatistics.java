@@ -0,0 +1,216 @@
+package io.wispforest.lavender.book;
+
+import io.wispforest.lavender.Lavender;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counts collected while reloading book contents, broken down
+ * by book and by reload phase. Phases which run in parallel for many resources
+ * record the time summed over all worker threads, which can thus exceed the
+ * wall-clock duration of the whole reload.
+ * <p>
+ * The statistics of the most recent reload are available through
+ * {@link #latest()} and the {@code /lavender stats} client command. Since reloads
+ * run on worker threads, every result is published through a single volatile write
+ */
+public final class ReloadStatistics {
+
+    private static volatile @Nullable ReloadStatistics latest = null;
+
+    private static volatile CountedTiming bookDefinitions = CountedTiming.NONE;
+    private static volatile CountedTiming structures = CountedTiming.NONE;
+
+    private final long startTime = System.nanoTime();
+    private long totalNanos = -1;
+
+    private final Timings timings = new Timings();
+    private final Map<Identifier, BookStatistics> books = new ConcurrentHashMap<>();
+
+    public static @Nullable ReloadStatistics latest() {
+        return latest;
+    }
+
+    /**
+     * Record the duration of the last book definition reload
+     */
+    public static void recordBookDefinitions(int bookCount, long startTime) {
+        bookDefinitions = new CountedTiming(bookCount, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Record the duration of the last structure parse
+     */
+    public static void recordStructures(int count, long startTime) {
+        structures = new CountedTiming(count, System.nanoTime() - startTime);
+    }
+
+    public BookStatistics book(Identifier bookId) {
+        return this.books.computeIfAbsent(bookId, BookStatistics::new);
+    }
+
+    /**
+     * Add the time elapsed since {@code startTime} to {@code phase}
+     *
+     * @return The current time, for use as the start of the next phase
+     */
+    public long record(Phase phase, long startTime) {
+        return this.timings.record(phase, startTime);
+    }
+
+    /**
+     * Mark this reload as complete, make it the {@link #latest()}
+     * one and log a summary of it
+     */
+    public void publish() {
+        this.totalNanos = System.nanoTime() - this.startTime;
+        latest = this;
+
+        Lavender.LOGGER.info(this.summary());
+    }
+
+    public String summary() {
+        int entries = 0, categories = 0, unchanged = 0;
+        long bytes = 0;
+
+        var phaseTotals = new Timings();
+        phaseTotals.add(this.timings);
+
+        for (var book : this.books.values()) {
+            entries += book.entries.get();
+            categories += book.categories.get();
+            unchanged += book.unchanged.get();
+            bytes += book.bytes.get();
+
+            phaseTotals.add(book.timings);
+        }
+
+        var bookDefinitions = ReloadStatistics.bookDefinitions;
+        var structures = ReloadStatistics.structures;
+
+        return "Reloaded " + this.books.size() + " books (" + entries + " entries, " + categories + " categories, " + unchanged + " unchanged, "
+                + formatBytes(bytes) + ") in " + formatNanos(this.totalNanos) + " - " + phaseTotals
+                + " | book definitions: " + bookDefinitions.count + " in " + formatNanos(bookDefinitions.nanos)
+                + " | structures: " + structures.count + " in " + formatNanos(structures.nanos);
+    }
+
+    public List<Text> report() {
+        var report = new ArrayList<Text>();
+        report.add(Text.literal(this.summary()));
+
+        var sortedBooks = new ArrayList<>(this.books.values());
+        sortedBooks.sort(Comparator.comparing(book -> book.id));
+
+        for (var book : sortedBooks) {
+            report.add(Text.literal(" " + book.id + ": ").formatted(Formatting.GRAY).append(Text.literal(book.toString()).formatted(Formatting.WHITE)));
+        }
+
+        return report;
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000d);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024d);
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024d * 1024d));
+    }
+
+    public enum Phase {
+        DISCOVERY("discovery"),
+        IO("i/o"),
+        FRONTMATTER("frontmatter"),
+        MACRO_EXPANSION("macros"),
+        ITEM_RESOLUTION("items/tags"),
+        APPLY("apply");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    public static final class BookStatistics {
+        private final Identifier id;
+        private final Timings timings = new Timings();
+
+        private final AtomicInteger entries = new AtomicInteger();
+        private final AtomicInteger categories = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private BookStatistics(Identifier id) {
+            this.id = id;
+        }
+
+        /**
+         * @see ReloadStatistics#record(Phase, long)
+         */
+        public long record(Phase phase, long startTime) {
+            return this.timings.record(phase, startTime);
+        }
+
+        public void countEntry() {
+            this.entries.incrementAndGet();
+        }
+
+        public void countCategory() {
+            this.categories.incrementAndGet();
+        }
+
+        public void countUnchanged() {
+            this.unchanged.incrementAndGet();
+        }
+
+        public void countBytes(long bytes) {
+            this.bytes.addAndGet(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return this.entries.get() + " entries, " + this.categories.get() + " categories, " + this.unchanged.get() + " unchanged, "
+                    + formatBytes(this.bytes.get()) + " - " + this.timings;
+        }
+    }
+
+    private record CountedTiming(int count, long nanos) {
+        private static final CountedTiming NONE = new CountedTiming(0, 0);
+    }
+
+    private static final class Timings {
+        private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+        private long record(Phase phase, long startTime) {
+            long now = System.nanoTime();
+            this.nanos.addAndGet(phase.ordinal(), now - startTime);
+            return now;
+        }
+
+        private void add(Timings other) {
+            for (int i = 0; i < this.nanos.length(); i++) {
+                this.nanos.addAndGet(i, other.nanos.get(i));
+            }
+        }
+
+        @Override
+        public String toString() {
+            var joiner = new StringJoiner(", ");
+            for (var phase : Phase.values()) {
+                joiner.add(phase.name + " " + formatNanos(this.nanos.get(phase.ordinal())));
+            }
+
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.hash.HashCode;
+import net.minecraft.util.Identifier;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The content hashes of all resources of one kind which a book
+ * successfully loaded during the last reload, used to determine which
+ * of them must be parsed again on the next one.
+ * <p>
+ * Resources whose result depends on the currently loaded tags are
+ * tracked separately, since they must be rebuilt whenever tags change
+ * even if their contents did not
+ */
+final class ResourceHashes {
+
+    private final Map<Identifier, HashCode> hashes;
+    private final Set<Identifier> tagDependent;
+
+    ResourceHashes() {
+        this(new HashMap<>(), new HashSet<>());
+    }
+
+    private ResourceHashes(Map<Identifier, HashCode> hashes, Set<Identifier> tagDependent) {
+        this.hashes = hashes;
+        this.tagDependent = tagDependent;
+    }
+
+    /**
+     * @return {@code true} if the resource {@code resourceId} was loaded
+     * from exactly {@code hash} before and does not need to be rebuilt
+     */
+    boolean isUnchanged(Identifier resourceId, HashCode hash, boolean tagsChanged) {
+        if (tagsChanged && this.tagDependent.contains(resourceId)) return false;
+        return hash.equals(this.hashes.get(resourceId));
+    }
+
+    void record(Identifier resourceId, HashCode hash, boolean dependsOnTags) {
+        this.hashes.put(resourceId, hash);
+        if (dependsOnTags) {
+            this.tagDependent.add(resourceId);
+        } else {
+            this.tagDependent.remove(resourceId);
+        }
+    }
+
+    void forget(Identifier resourceId) {
+        this.hashes.remove(resourceId);
+        this.tagDependent.remove(resourceId);
+    }
+
+    Set<Identifier> resourceIds() {
+        return this.hashes.keySet();
+    }
+
+    ResourceHashes copy() {
+        return new ResourceHashes(new HashMap<>(this.hashes), new HashSet<>(this.tagDependent));
+    }
+}
@@ -0,0 +1,170 @@
+package io.wispforest.lavender.book;
+
+import io.wispforest.lavender.client.AlphanumComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.util.Identifier;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable inverted index over the normalized terms of a book's entries, drawn
+ * from their titles, the titles of their categories and their markdown bodies. Queries
+ * match entries containing every query term, either exactly or as a prefix of a
+ * term in the index, and are ranked by where in the entries the terms occur.
+ * <p>
+ * The terms of every body are extracted once when its content is loaded,
+ * the book rebuilds the index itself on a worker thread after every reload
+ */
+final class SearchIndex {
+
+    static final String[] NO_TERMS = new String[0];
+
+    // postings store the fields a term occurs in below the entry index
+    private static final int FIELD_BITS = 3;
+    private static final int TITLE = 0b100, CATEGORY = 0b010, BODY = 0b001;
+
+    private static final Pattern MARKUP_PATTERN = Pattern.compile("<[^>\\n]*>|\\{[^}\\n]*}|]\\([^)\\n]*\\)");
+    private static final Pattern DIACRITICS_PATTERN = Pattern.compile("\\p{M}+");
+
+    private final Entry[] entries;
+    private final String[] terms;
+    private final int[][] postings;
+
+    private SearchIndex(Entry[] entries, String[] terms, int[][] postings) {
+        this.entries = entries;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    static SearchIndex build(Collection<Entry> entries, Map<Identifier, String[]> bodyTerms, Function<Identifier, Category> categories) {
+        var indexedEntries = entries.toArray(Entry[]::new);
+        var postingsByTerm = new HashMap<String, IntArrayList>();
+
+        for (int entryIndex = 0; entryIndex < indexedEntries.length; entryIndex++) {
+            var entry = indexedEntries[entryIndex];
+            var fieldsByTerm = new Object2IntOpenHashMap<String>();
+
+            for (var term : tokenize(entry.title())) fieldsByTerm.mergeInt(term, TITLE, (a, b) -> a | b);
+
+            var category = entry.category() != null ? categories.apply(entry.category()) : null;
+            if (category != null) {
+                for (var term : tokenize(category.title())) fieldsByTerm.mergeInt(term, CATEGORY, (a, b) -> a | b);
+            }
+
+            for (var term : bodyTerms.getOrDefault(entry.id(), NO_TERMS)) fieldsByTerm.mergeInt(term, BODY, (a, b) -> a | b);
+
+            int posting = entryIndex << FIELD_BITS;
+            fieldsByTerm.object2IntEntrySet().fastForEach(termFields -> {
+                postingsByTerm.computeIfAbsent(termFields.getKey(), $ -> new IntArrayList()).add(posting | termFields.getIntValue());
+            });
+        }
+
+        var terms = postingsByTerm.keySet().toArray(String[]::new);
+        Arrays.sort(terms);
+
+        var postings = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            postings[i] = postingsByTerm.get(terms[i]).toIntArray();
+        }
+
+        return new SearchIndex(indexedEntries, terms, postings);
+    }
+
+    /**
+     * @return All entries which contain every term of {@code query}, best matches first.
+     * Entries which contain the terms in their title rank above those which contain them
+     * in their category's title, which in turn rank above those containing them only in
+     * their body. Exact matches rank above prefix matches within the same field
+     */
+    List<Entry> query(String query) {
+        var queryTerms = new LinkedHashSet<>(Arrays.asList(tokenize(query)));
+        if (queryTerms.isEmpty()) return List.of();
+
+        int[] scores = null;
+        for (var queryTerm : queryTerms) {
+            var termScores = new int[this.entries.length];
+
+            for (int termIndex = this.firstTermWithPrefix(queryTerm); termIndex < this.terms.length; termIndex++) {
+                var term = this.terms[termIndex];
+                if (!term.startsWith(queryTerm)) break;
+
+                boolean exact = term.length() == queryTerm.length();
+                for (int posting : this.postings[termIndex]) {
+                    int entryIndex = posting >>> FIELD_BITS;
+                    termScores[entryIndex] = Math.max(termScores[entryIndex], score(posting & ((1 << FIELD_BITS) - 1), exact));
+                }
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = scores[i] != 0 && termScores[i] != 0 ? scores[i] + termScores[i] : 0;
+                }
+            }
+        }
+
+        var matchIndices = new IntArrayList();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] != 0) matchIndices.add(i);
+        }
+
+        var matches = matchIndices.toIntArray();
+        var finalScores = scores;
+        IntArrays.quickSort(matches, (a, b) -> {
+            int byScore = Integer.compare(finalScores[b], finalScores[a]);
+            return byScore != 0 ? byScore : AlphanumComparator.compare(this.entries[a].title(), this.entries[b].title());
+        });
+
+        var results = new ArrayList<Entry>(matches.length);
+        for (int index : matches) results.add(this.entries[index]);
+        return results;
+    }
+
+    private int firstTermWithPrefix(String prefix) {
+        int index = Arrays.binarySearch(this.terms, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int score(int fields, boolean exact) {
+        int fieldScore = (fields & TITLE) != 0 ? 8 : (fields & CATEGORY) != 0 ? 4 : 2;
+        return exact ? fieldScore : fieldScore - 1;
+    }
+
+    /**
+     * @return The distinct terms of {@code markdown}, ignoring all markup
+     * and the targets of links, in no particular order
+     */
+    static String[] bodyTerms(String markdown) {
+        var terms = tokenize(MARKUP_PATTERN.matcher(markdown).replaceAll(" "));
+        return terms.length == 0 ? NO_TERMS : new LinkedHashSet<>(Arrays.asList(terms)).toArray(String[]::new);
+    }
+
+    /**
+     * Split {@code text} into its lowercase alphanumeric
+     * runs, with all diacritics removed
+     */
+    static String[] tokenize(String text) {
+        var normalized = DIACRITICS_PATTERN.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+
+        var terms = new ArrayList<String>();
+        int termStart = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean partOfTerm = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+
+            if (partOfTerm && termStart == -1) {
+                termStart = i;
+            } else if (!partOfTerm && termStart != -1) {
+                terms.add(normalized.substring(termStart, i));
+                termStart = -1;
+            }
+        }
+
+        return terms.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,176 @@
+package io.wispforest.lavender.book;
+
+import io.wispforest.lavender.client.AlphanumComparator;
+import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import java.util.*;
+
+/**
+ * An immutable index over the trigrams of all words in the titles and associated
+ * item names of a book's entries, used to find entries despite misspelled queries.
+ * Each query word is only compared against the words sharing at least one
+ * trigram with it, using the Sorensen-Dice coefficient of their trigram sets
+ * <p>
+ * Since item names depend on the selected language, the book rebuilds the
+ * index on a worker thread after either its contents or the language changed.
+ * Item names are resolved on the client thread beforehand using {@link #itemNames(Collection)}
+ */
+final class TrigramIndex {
+
+    private static final float MIN_SIMILARITY = .3f;
+
+    private final Entry[] entries;
+
+    private final int[] wordTrigramCounts;
+    private final int[][] wordEntries;
+    private final Long2ObjectOpenHashMap<int[]> wordsByTrigram;
+
+    private TrigramIndex(Entry[] entries, int[] wordTrigramCounts, int[][] wordEntries, Long2ObjectOpenHashMap<int[]> wordsByTrigram) {
+        this.entries = entries;
+        this.wordTrigramCounts = wordTrigramCounts;
+        this.wordEntries = wordEntries;
+        this.wordsByTrigram = wordsByTrigram;
+    }
+
+    /**
+     * Resolve the names of the associated items of {@code entries} in the
+     * current language. Must be invoked on the client thread
+     */
+    static Map<Entry, List<String>> itemNames(Collection<Entry> entries) {
+        var itemNames = new HashMap<Entry, List<String>>();
+        for (var entry : entries) {
+            if (entry.associatedItems().isEmpty()) continue;
+
+            var names = new ArrayList<String>(entry.associatedItems().size());
+            for (var item : entry.associatedItems()) names.add(item.getName().getString());
+
+            itemNames.put(entry, names);
+        }
+
+        return itemNames;
+    }
+
+    static TrigramIndex build(Collection<Entry> entries, Map<Entry, List<String>> itemNames) {
+        var indexedEntries = entries.toArray(Entry[]::new);
+        var entriesByWord = new Object2ObjectOpenHashMap<String, IntArrayList>();
+
+        for (int entryIndex = 0; entryIndex < indexedEntries.length; entryIndex++) {
+            var entry = indexedEntries[entryIndex];
+
+            var words = new HashSet<>(Arrays.asList(SearchIndex.tokenize(entry.title())));
+            for (var itemName : itemNames.getOrDefault(entry, List.of())) {
+                words.addAll(Arrays.asList(SearchIndex.tokenize(itemName)));
+            }
+
+            for (var word : words) {
+                entriesByWord.computeIfAbsent(word, $ -> new IntArrayList()).add(entryIndex);
+            }
+        }
+
+        var wordTrigramCounts = new int[entriesByWord.size()];
+        var wordEntries = new int[entriesByWord.size()][];
+        var wordsByTrigram = new Long2ObjectOpenHashMap<IntArrayList>();
+
+        int wordIndex = 0;
+        for (var wordAndEntries : entriesByWord.object2ObjectEntrySet()) {
+            var trigrams = trigrams(wordAndEntries.getKey());
+
+            wordTrigramCounts[wordIndex] = trigrams.size();
+            wordEntries[wordIndex] = wordAndEntries.getValue().toIntArray();
+
+            for (var iterator = trigrams.iterator(); iterator.hasNext(); ) {
+                wordsByTrigram.computeIfAbsent(iterator.nextLong(), $ -> new IntArrayList()).add(wordIndex);
+            }
+
+            wordIndex++;
+        }
+
+        var compactWordsByTrigram = new Long2ObjectOpenHashMap<int[]>(wordsByTrigram.size());
+        wordsByTrigram.long2ObjectEntrySet().fastForEach(trigramWords -> {
+            compactWordsByTrigram.put(trigramWords.getLongKey(), trigramWords.getValue().toIntArray());
+        });
+
+        return new TrigramIndex(indexedEntries, wordTrigramCounts, wordEntries, compactWordsByTrigram);
+    }
+
+    /**
+     * @return All entries which, for every word of {@code query}, have a word in their
+     * title or associated item names that is sufficiently similar to it, most similar first
+     */
+    List<Entry> query(String query) {
+        var queryWords = new LinkedHashSet<>(Arrays.asList(SearchIndex.tokenize(query)));
+        if (queryWords.isEmpty()) return List.of();
+
+        Int2FloatOpenHashMap scores = null;
+        for (var queryWord : queryWords) {
+            var queryTrigrams = trigrams(queryWord);
+
+            var sharedTrigrams = new Int2IntOpenHashMap();
+            for (var iterator = queryTrigrams.iterator(); iterator.hasNext(); ) {
+                var words = this.wordsByTrigram.get(iterator.nextLong());
+                if (words == null) continue;
+
+                for (int word : words) sharedTrigrams.addTo(word, 1);
+            }
+
+            var wordScores = new Int2FloatOpenHashMap();
+            sharedTrigrams.int2IntEntrySet().fastForEach(wordAndShared -> {
+                int word = wordAndShared.getIntKey();
+
+                float similarity = 2f * wordAndShared.getIntValue() / (queryTrigrams.size() + this.wordTrigramCounts[word]);
+                if (similarity < MIN_SIMILARITY) return;
+
+                for (int entryIndex : this.wordEntries[word]) {
+                    if (similarity > wordScores.get(entryIndex)) wordScores.put(entryIndex, similarity);
+                }
+            });
+
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                var intersection = new Int2FloatOpenHashMap();
+                var previousScores = scores;
+                wordScores.int2FloatEntrySet().fastForEach(entryAndScore -> {
+                    if (!previousScores.containsKey(entryAndScore.getIntKey())) return;
+                    intersection.put(entryAndScore.getIntKey(), previousScores.get(entryAndScore.getIntKey()) + entryAndScore.getFloatValue());
+                });
+
+                scores = intersection;
+            }
+
+            if (scores.isEmpty()) return List.of();
+        }
+
+        var matches = scores.keySet().toIntArray();
+        var finalScores = scores;
+        IntArrays.quickSort(matches, (a, b) -> {
+            int bySimilarity = Float.compare(finalScores.get(b), finalScores.get(a));
+            return bySimilarity != 0 ? bySimilarity : AlphanumComparator.compare(this.entries[a].title(), this.entries[b].title());
+        });
+
+        var results = new ArrayList<Entry>(matches.length);
+        for (int index : matches) results.add(this.entries[index]);
+        return results;
+    }
+
+    /**
+     * @return The trigrams of {@code word}, padded such that its start
+     * weighs more than its end, each packed into a single long
+     */
+    private static LongOpenHashSet trigrams(String word) {
+        var padded = "  " + word + " ";
+
+        var trigrams = new LongOpenHashSet(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+
+        return trigrams;
+    }
+}
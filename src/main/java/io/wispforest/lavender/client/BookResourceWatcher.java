@@ -0,0 +1,227 @@
+package io.wispforest.lavender.client;
+
+import io.wispforest.lavender.Lavender;
+import io.wispforest.lavender.book.BookContentLoader;
+import io.wispforest.lavender.book.BookLoader;
+import io.wispforest.lavender.mixin.access.DirectoryResourcePackAccessor;
+import io.wispforest.lavender.structure.LavenderStructures;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.resource.DirectoryResourcePack;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A development-only watcher over all directory-based resource packs and mod
+ * roots. Whenever a file defining an entry, category, book or structure changes,
+ * only that file is loaded again and patched into the live book or structure
+ * table, after which the open book screen (if any) is refreshed in place
+ */
+@ApiStatus.Internal
+public class BookResourceWatcher {
+
+    // editors tend to save in multiple steps, so wait
+    // until the filesystem settles before reloading
+    private static final long DEBOUNCE_MILLIS = 100;
+
+    private static final Map<WatchKey, WatchedDirectory> WATCHED_DIRECTORIES = new ConcurrentHashMap<>();
+    private static final Set<Path> WATCHED_ROOTS = new HashSet<>();
+
+    private static WatchService watchService;
+
+    public static void initialize() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            Lavender.LOGGER.warn("Could not create resource watcher, book hot reloading will be unavailable", e);
+            return;
+        }
+
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+            @Override
+            public Identifier getFabricId() {
+                return Lavender.id("book_resource_watcher");
+            }
+
+            @Override
+            public void reload(ResourceManager manager) {
+                updateRoots(manager);
+            }
+        });
+
+        var watcherThread = new Thread(BookResourceWatcher::watch, "Lavender Book Resource Watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    // --- root discovery ---
+
+    private static void updateRoots(ResourceManager manager) {
+        var roots = new HashSet<Path>();
+        manager.streamResourcePacks().forEach(pack -> {
+            if (!(pack instanceof DirectoryResourcePack)) return;
+            roots.add(((DirectoryResourcePackAccessor) pack).lavender$getRoot());
+        });
+
+        for (var mod : FabricLoader.getInstance().getAllMods()) {
+            for (var root : mod.getRootPaths()) {
+                if (root.getFileSystem() != FileSystems.getDefault() || !Files.isDirectory(root)) continue;
+                roots.add(root);
+            }
+        }
+
+        WATCHED_DIRECTORIES.entrySet().removeIf(watched -> {
+            if (roots.contains(watched.getValue().root)) return false;
+
+            watched.getKey().cancel();
+            return true;
+        });
+
+        WATCHED_ROOTS.retainAll(roots);
+        for (var root : roots) {
+            if (!WATCHED_ROOTS.add(root)) continue;
+
+            try (var namespaces = Files.newDirectoryStream(root.resolve("assets"), Files::isDirectory)) {
+                for (var namespace : namespaces) {
+                    var lavenderDirectory = namespace.resolve("lavender");
+                    if (Files.isDirectory(lavenderDirectory)) watchRecursively(root, lavenderDirectory);
+                }
+            } catch (NoSuchFileException | NotDirectoryException ignored) {
+                // this root does not contain any assets
+            } catch (IOException e) {
+                Lavender.LOGGER.warn("Could not watch resource root {} for changes", root, e);
+            }
+        }
+    }
+
+    private static void watchRecursively(Path root, Path directory) {
+        try (var directories = Files.walk(directory)) {
+            directories.filter(Files::isDirectory).forEach(subdirectory -> {
+                try {
+                    var key = subdirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    WATCHED_DIRECTORIES.put(key, new WatchedDirectory(root, subdirectory));
+                } catch (IOException e) {
+                    Lavender.LOGGER.warn("Could not watch directory {} for changes", subdirectory, e);
+                }
+            });
+        } catch (IOException e) {
+            Lavender.LOGGER.warn("Could not watch directory {} for changes", directory, e);
+        }
+    }
+
+    // --- change detection ---
+
+    private static void watch() {
+        try {
+            while (true) {
+                var changedLocations = new LinkedHashSet<Identifier>();
+
+                var key = watchService.take();
+                do {
+                    collectChanges(key, changedLocations);
+                } while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (changedLocations.isEmpty()) continue;
+                MinecraftClient.getInstance().execute(() -> applyChanges(changedLocations));
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {}
+    }
+
+    private static void collectChanges(WatchKey key, Set<Identifier> changedLocations) {
+        var directory = WATCHED_DIRECTORIES.get(key);
+        if (directory == null) {
+            key.cancel();
+            return;
+        }
+
+        for (var event : key.pollEvents()) {
+            if (!(event.context() instanceof Path fileName)) continue;
+
+            var file = directory.path.resolve(fileName);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                watchRecursively(directory.root, file);
+                continue;
+            }
+
+            var location = locationOf(directory.root, file);
+            if (location != null) changedLocations.add(location);
+        }
+
+        key.reset();
+    }
+
+    /**
+     * @return The resource location of {@code file} inside the
+     * resource root {@code root}, or {@code null} if it has none
+     */
+    private static @Nullable Identifier locationOf(Path root, Path file) {
+        var relativePath = root.relativize(file);
+        if (relativePath.getNameCount() < 4 || !relativePath.getName(0).toString().equals("assets")) return null;
+
+        var path = new StringJoiner("/");
+        for (int i = 2; i < relativePath.getNameCount(); i++) {
+            path.add(relativePath.getName(i).toString());
+        }
+
+        return Identifier.tryParse(relativePath.getName(1) + ":" + path);
+    }
+
+    // --- reloading ---
+
+    private static void applyChanges(Set<Identifier> changedLocations) {
+        var client = MinecraftClient.getInstance();
+        var manager = client.getResourceManager();
+
+        boolean booksChanged = false, structuresChanged = false;
+        var changedBooks = new HashSet<Identifier>();
+
+        for (var location : changedLocations) {
+            if (location.getPath().startsWith("lavender/books/")) {
+                booksChanged = true;
+            } else if (LavenderStructures.reloadStructure(manager, location)) {
+                structuresChanged = true;
+            } else {
+                var book = BookContentLoader.reloadResource(manager, location);
+                if (book != null) changedBooks.add(book.id());
+            }
+        }
+
+        // book definitions affect every entry of their book, but the
+        // incremental reload takes care of only rebuilding the ones that changed
+        if (booksChanged) {
+            BookLoader.reload(manager);
+            BookContentLoader.reloadContents(manager);
+        }
+
+        // compiled pages and parse trees embed structures, so they must be built again
+        if (structuresChanged) {
+            CompiledPageCache.clear();
+            ParsedEntryCache.clear();
+            ParsedEntryCache.warmUp();
+        }
+
+        Lavender.LOGGER.info("Hot-reloaded {} changed book resource(s)", changedLocations.size());
+
+        if (!(client.currentScreen instanceof LavenderBookScreen screen)) return;
+
+        var currentBook = BookLoader.get(screen.book.id());
+        if (currentBook != screen.book) {
+            client.setScreen(currentBook != null ? new LavenderBookScreen(currentBook, screen.isOverlay) : null);
+        } else if (booksChanged || structuresChanged || changedBooks.contains(screen.book.id())) {
+            screen.refreshContent();
+        }
+    }
+
+    private record WatchedDirectory(Path root, Path path) {}
+}
@@ -0,0 +1,84 @@
+package io.wispforest.lavender.client;
+
+import io.wispforest.lavender.book.Book;
+import io.wispforest.lavender.book.BookLoader;
+import io.wispforest.lavender.book.LavenderBookItem;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tracks which hotbar slot, if any, holds each book in the client player's
+ * inventory. The table is only rebuilt when one of the tracked stacks was
+ * replaced or had its NBT swapped out, so looking up a book does not require
+ * scanning the inventory or decoding any book stacks
+ */
+public final class BookSlotTracker {
+
+    public static final int NO_SLOT = -1;
+    public static final int OFFHAND_SLOT = -69;
+
+    private static final int TRACKED_SLOTS = PlayerInventory.getHotbarSize() + 1;
+
+    private static final ItemStack[] TRACKED_STACKS = new ItemStack[TRACKED_SLOTS];
+    private static final NbtCompound[] TRACKED_NBT = new NbtCompound[TRACKED_SLOTS];
+    private static final Object2IntOpenHashMap<Identifier> SLOTS_BY_BOOK = new Object2IntOpenHashMap<>();
+
+    private static @Nullable PlayerInventory trackedInventory = null;
+
+    static {
+        SLOTS_BY_BOOK.defaultReturnValue(NO_SLOT);
+    }
+
+    private BookSlotTracker() {}
+
+    /**
+     * @return The hotbar slot holding {@code book}, {@link #OFFHAND_SLOT} if it is
+     * in the offhand or {@link #NO_SLOT} if {@code inventory} does not hold it at all
+     */
+    public static int slotOf(PlayerInventory inventory, Book book) {
+        update(inventory);
+
+        if (BookLoader.get(book.id()) != book) return NO_SLOT;
+        return SLOTS_BY_BOOK.getInt(book.id());
+    }
+
+    private static void update(PlayerInventory inventory) {
+        if (inventory == trackedInventory && !stacksChanged(inventory)) return;
+        trackedInventory = inventory;
+
+        SLOTS_BY_BOOK.clear();
+        for (int i = 0; i < TRACKED_SLOTS; i++) {
+            var stack = trackedStack(inventory, i);
+            TRACKED_STACKS[i] = stack;
+            TRACKED_NBT[i] = stack.getNbt();
+
+            var bookId = LavenderBookItem.bookIdOf(stack);
+            if (bookId == null) continue;
+
+            if (i == TRACKED_SLOTS - 1) {
+                SLOTS_BY_BOOK.put(bookId, OFFHAND_SLOT);
+            } else {
+                SLOTS_BY_BOOK.putIfAbsent(bookId, i);
+            }
+        }
+    }
+
+    private static boolean stacksChanged(PlayerInventory inventory) {
+        for (int i = 0; i < TRACKED_SLOTS; i++) {
+            var stack = trackedStack(inventory, i);
+            if (stack != TRACKED_STACKS[i] || stack.getNbt() != TRACKED_NBT[i]) return true;
+        }
+
+        return false;
+    }
+
+    private static ItemStack trackedStack(PlayerInventory inventory, int index) {
+        return index == TRACKED_SLOTS - 1
+                ? inventory.offHand.get(0)
+                : inventory.getStack(index);
+    }
+}
@@ -0,0 +1,79 @@
+package io.wispforest.lavender.client;
+
+import io.wispforest.lavender.book.LazyContent;
+import io.wispforest.lavender.md.compiler.BookCompiler;
+import io.wispforest.owo.ui.core.Component;
+import net.minecraft.util.Identifier;
+import org.apache.commons.lang3.mutable.MutableObject;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of the compiled pages of recently displayed entries, so that
+ * revisiting an entry (possibly from a different book screen) only needs to remount
+ * its components instead of processing its markdown again. Pages are keyed by
+ * what they render, namely the content of their entry and the visibility of
+ * the entries it links to, so viewing entries does not invalidate them. The whole
+ * cache is discarded whenever book contents are reloaded
+ */
+@ApiStatus.Internal
+public final class CompiledPageCache {
+
+    private static final int MAX_SIZE = 16;
+
+    private static final Map<Key, CompiledPages> CACHE = new LinkedHashMap<>(MAX_SIZE, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CompiledPages> eldest) {
+            return this.size() > MAX_SIZE;
+        }
+    };
+
+    private CompiledPageCache() {}
+
+    /**
+     * @return The cached pages for {@code key}, rebound to {@code screen}
+     * and detached from whichever screen displayed them before
+     */
+    static @Nullable List<Component> get(Key key, LavenderBookScreen screen) {
+        var cached = CACHE.get(key);
+        if (cached == null) return null;
+
+        cached.owner.setValue(screen);
+        for (var page : cached.pages) {
+            var parent = page.parent();
+            if (parent != null) parent.removeChild(page);
+
+            page.forEachDescendant(descendant -> {
+                if (descendant instanceof BookCompiler.BookLabelComponent label) label.setOwner(screen);
+            });
+        }
+
+        return cached.pages;
+    }
+
+    /**
+     * @param owner The holder through which all click handlers
+     *              among {@code pages} obtain the screen to navigate
+     */
+    static void put(Key key, List<Component> pages, MutableObject<LavenderBookScreen> owner) {
+        CACHE.put(key, new CompiledPages(List.copyOf(pages), owner));
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * @param content            The content the pages were compiled from, compared by identity
+     *                           since every reload of an entry creates a new instance
+     * @param visibilityRevision The {@link io.wispforest.lavender.book.Book.DisplayRevision#visibility()} the pages were
+     *                           compiled at, as links only lead to entries the player can view
+     */
+    record Key(Identifier bookId, Identifier entryId, LazyContent content, int scaleFactor, int visibilityRevision) {}
+
+    private record CompiledPages(List<Component> pages, MutableObject<LavenderBookScreen> owner) {}
+}
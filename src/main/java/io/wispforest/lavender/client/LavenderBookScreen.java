@@ -24,11 +24,11 @@ import io.wispforest.owo.ui.parsing.UIModel;
 import io.wispforest.owo.ui.parsing.UIParsing;
 import io.wispforest.owo.ui.util.CommandOpenedScreen;
 import io.wispforest.owo.ui.util.UISounds;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.tooltip.TooltipComponent;
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.client.util.Window;
 import net.minecraft.recipe.Recipe;
 import net.minecraft.recipe.RecipeType;
@@ -39,7 +39,7 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Util;
 import net.minecraft.util.math.MathHelper;
-import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
@@ -55,6 +55,11 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
 
     private static final Map<Identifier, Map<RecipeType<?>, RecipeFeature.RecipePreviewBuilder<?>>> RECIPE_HANDLERS = new HashMap<>();
     private static final Map<Identifier, FeatureProvider> FEATURE_PROVIDERS = new HashMap<>();
+    private static final Set<Identifier> PARSE_WARM_UP_BOOKS = new HashSet<>();
+    private static final int MAX_PREFETCHED_LINKS = 8;
+
+    private static final int SEARCH_DEBOUNCE_THRESHOLD = 500;
+    private static final long SEARCH_DEBOUNCE_MS = 150;
 
     private static final Map<Identifier, List<NavFrame.Replicator>> NAV_TRAILS = new HashMap<>();
 
@@ -77,31 +82,45 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
     private FlowLayout bookmarkPanel;
 
     private final Deque<NavFrame> navStack = new ArrayDeque<>();
+    private long pendingSearchDeadline = -1;
 
     public LavenderBookScreen(Book book, boolean isOverlay) {
         super(FlowLayout.class, Lavender.id("book"));
         this.book = book;
         this.isOverlay = isOverlay;
 
+        this.processor = createProcessor(book, this.bookComponentSource);
+    }
+
+    public LavenderBookScreen(Book book) {
+        this(book, false);
+    }
+
+    static MarkdownProcessor<ParentComponent> createProcessor(Book book, BookCompiler.ComponentSource componentSource) {
+        return createProcessor(book, componentSource, GameLookup.LIVE);
+    }
+
+    /**
+     * @param lookup The game state to resolve recipes, structures and tags
+     *               from, which must be a snapshot unless the processor is
+     *               only used on the client thread
+     */
+    static MarkdownProcessor<ParentComponent> createProcessor(Book book, BookCompiler.ComponentSource componentSource, GameLookup lookup) {
         var processor = MarkdownProcessor.richText(0)
-                .copyWith(() -> new BookCompiler(this.bookComponentSource))
+                .copyWith(() -> new BookCompiler(componentSource))
                 .copyWith(
                         new ImageFeature(), new BlockStateFeature(), new ItemStackFeature(), new EntityFeature(),
-                        new PageBreakFeature(), new OwoUITemplateFeature(this.bookComponentSource),
-                        new RecipeFeature(this.bookComponentSource, RECIPE_HANDLERS.get(this.book.id())),
-                        new StructureFeature(this.bookComponentSource), new KeybindFeature(),
-                        new ItemTagFeature(), new OwoUIModelFeature(), new TranslationsFeature()
+                        new PageBreakFeature(), new OwoUITemplateFeature(componentSource),
+                        new RecipeFeature(componentSource, RECIPE_HANDLERS.get(book.id()), lookup),
+                        new StructureFeature(componentSource, lookup), new KeybindFeature(),
+                        new ItemTagFeature(lookup), new OwoUIModelFeature(), new TranslationsFeature()
                 );
 
         if (FEATURE_PROVIDERS.get(book.id()) != null) {
-            processor = processor.copyWith(FEATURE_PROVIDERS.get(book.id()).createFeatures(this.bookComponentSource).toArray(MarkdownFeature[]::new));
+            processor = processor.copyWith(FEATURE_PROVIDERS.get(book.id()).createFeatures(componentSource).toArray(MarkdownFeature[]::new));
         }
 
-        this.processor = processor;
-    }
-
-    public LavenderBookScreen(Book book) {
-        this(book, false);
+        return processor;
     }
 
     @Override
@@ -185,12 +204,13 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         this.searchBox = this.component(TextBoxComponent.class, "search-box");
         searchBox.visible = searchBox.active = false;
         searchBox.onChanged().subscribe(value -> {
-            var frame = this.currentNavFrame();
-
-            this.navStack.pop();
-            this.navPush(new NavFrame(frame.pageSupplier.replicator().apply(this), frame.selectedPage), true);
-
-            this.rebuildContent(null);
+            // laying out the index of a large book takes long enough
+            // to be noticeable, so only do it once typing paused
+            if (this.book.entries().size() >= SEARCH_DEBOUNCE_THRESHOLD) {
+                this.pendingSearchDeadline = Util.getMeasuringTimeMs() + SEARCH_DEBOUNCE_MS;
+            } else {
+                this.rebuildContent(null);
+            }
         });
 
         var navTrail = getNavTrail(this.book);
@@ -210,14 +230,29 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
     }
 
     private void rebuildContent(@Nullable SoundEvent sound) {
-        var pageSupplier = this.currentNavFrame().replicator().pageSupplier.apply(this);
-        int selectedPage = this.currentNavFrame().selectedPage;
+        var frame = this.currentNavFrame();
 
-        if (pageSupplier == null) {
-            this.navPop();
-            return;
+        // only build the pages again if anything they display has changed,
+        // turning a page or opening a bookmark reuses those built before
+        if (frame.displayRevision == null || !this.book.displayRevision().allowsReuseOf(frame.displayRevision, frame.pageSupplier.showsViewedEntries())) {
+            var rebuiltSupplier = frame.replicator().pageSupplier.apply(this);
+            if (rebuiltSupplier == null) {
+                this.navPop();
+                return;
+            }
+
+            frame.pageSupplier = rebuiltSupplier;
+            frame.displayRevision = this.book.displayRevision();
         }
 
+        var pageSupplier = frame.pageSupplier;
+        if (pageSupplier.searchable()) {
+            this.pendingSearchDeadline = -1;
+            pageSupplier.applySearch();
+        }
+
+        int selectedPage = frame.selectedPage;
+
         if (sound != null) this.client.player.playSound(sound, 1f, 1f);
 
         if (selectedPage >= pageSupplier.pageCount()) {
@@ -341,6 +376,16 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         this.rebuildContent(this.book.flippingSound());
     }
 
+    @Override
+    public void tick() {
+        super.tick();
+
+        if (this.pendingSearchDeadline != -1 && Util.getMeasuringTimeMs() >= this.pendingSearchDeadline) {
+            this.pendingSearchDeadline = -1;
+            this.rebuildContent(null);
+        }
+    }
+
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
         mouseX = (int) (mouseX * this.window.getScaleFactor() / this.scaleFactor);
@@ -464,6 +509,15 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         return this.uiAdapter;
     }
 
+    /**
+     * Rebuild the currently displayed page from the current
+     * contents of this screen's book, keeping the navigation state intact
+     */
+    public void refreshContent() {
+        this.currentNavFrame().displayRevision = null;
+        this.rebuildContent(null);
+    }
+
     protected static List<NavFrame.Replicator> getNavTrail(Book book) {
         return NAV_TRAILS.computeIfAbsent(book.id(), $ -> Util.make(
                 new ArrayList<>(),
@@ -510,11 +564,35 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         FEATURE_PROVIDERS.put(bookId, provider);
     }
 
+    /**
+     * Parse all entries of the book {@code bookId} in the background whenever its
+     * contents are loaded, instead of each one the first time it is opened. This
+     * makes opening entries faster and reports malformed ones right away, in exchange
+     * for some work on the worker threads after every reload
+     * <p>
+     * Features registered through {@link #registerFeatureFactory(Identifier, FeatureProvider)}
+     * then lex on those worker threads too, so they must not read game state which
+     * the client thread may modify concurrently
+     */
+    public static void enableParseWarmUp(Identifier bookId) {
+        PARSE_WARM_UP_BOOKS.add(bookId);
+    }
+
+    static boolean shouldWarmUp(Identifier bookId) {
+        return PARSE_WARM_UP_BOOKS.contains(bookId);
+    }
+
     public static abstract class PageSupplier {
 
         protected final LavenderBookScreen context;
         protected final List<Component> pages = new ArrayList<>();
 
+        private @Nullable EntryIndex entryIndex = null;
+        private FlowLayout entryIndexFirstPage;
+        private int entryIndexFirstPageSize, entryIndexPagesStart;
+        private @Nullable FlowLayout entryIndexFirstSection = null;
+        private @Nullable String appliedSearchText = null;
+
         protected PageSupplier(LavenderBookScreen context) {
             this.context = context;
         }
@@ -531,6 +609,14 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             return false;
         }
 
+        /**
+         * @return Whether these pages display which entries have been viewed,
+         * meaning they must be built again whenever an entry is viewed
+         */
+        public boolean showsViewedEntries() {
+            return false;
+        }
+
         abstract boolean canMerge(PageSupplier other);
 
         abstract Function<LavenderBookScreen, @Nullable PageSupplier> replicator();
@@ -548,7 +634,57 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         }
 
         protected ParentComponent parseMarkdown(String markdown) {
-            var component = this.context.processor.process(markdown);
+            return this.parseMarkdown(markdown, new MutableObject<>(this.context));
+        }
+
+        /**
+         * @param owner The screen which item links among the compiled components navigate in,
+         *              which can be swapped out if the components are later reused elsewhere
+         */
+        protected ParentComponent parseMarkdown(String markdown, MutableObject<LavenderBookScreen> owner) {
+            return this.attachNavigation(this.context.processor.process(markdown), owner);
+        }
+
+        protected ParentComponent parseMarkdown(LazyContent content) {
+            return this.parseMarkdown(content, new MutableObject<>(this.context));
+        }
+
+        /**
+         * Like {@link #parseMarkdown(String, MutableObject)}, but reuses the
+         * parse tree of {@code content} if it was already parsed before
+         */
+        protected ParentComponent parseMarkdown(LazyContent content, MutableObject<LavenderBookScreen> owner) {
+            return this.attachNavigation(ParsedEntryCache.compile(this.context.book, content, this.context.bookComponentSource), owner);
+        }
+
+        /**
+         * Parse the pages most likely to be navigated to from the page {@code pageId}
+         * in the background, limited to those the player can actually open
+         */
+        protected void prefetchLinks(Identifier pageId) {
+            var book = this.context.book;
+            var player = this.context.client.player;
+
+            var contents = new LinkedHashMap<Identifier, LazyContent>();
+            for (var target : book.outgoingLinks(pageId)) {
+                if (contents.size() >= MAX_PREFETCHED_LINKS) break;
+
+                var entry = book.entryById(target);
+                if (entry != null) {
+                    if (book.canPlayerView(entry, player)) contents.put(target, entry.lazyContent());
+                    continue;
+                }
+
+                var category = book.categoryById(target);
+                if (category != null && book.shouldDisplayCategory(category, player)) {
+                    contents.put(target, category.lazyContent());
+                }
+            }
+
+            if (!contents.isEmpty()) ParsedEntryCache.prefetch(book, contents);
+        }
+
+        private ParentComponent attachNavigation(ParentComponent component, MutableObject<LavenderBookScreen> owner) {
             component.forEachDescendant(descendant -> {
                 if (descendant instanceof BookCompiler.BookLabelComponent label) {
                     label.setOwner(this.context);
@@ -560,7 +696,7 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
                         return;
                     }
 
-                    if (!entry.canPlayerView(this.context.client.player)) {
+                    if (!this.context.book.canPlayerView(entry, this.context.client.player)) {
                         return;
                     }
 
@@ -578,7 +714,7 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
 
                     item.mouseDown().subscribe((mouseX, mouseY, button) -> {
                         if (button != GLFW.GLFW_MOUSE_BUTTON_LEFT) return false;
-                        this.context.navPush(new EntryPageSupplier(this.context, entry));
+                        owner.getValue().navPush(new EntryPageSupplier(owner.getValue(), entry));
 
                         UISounds.playInteractionSound();
                         return true;
@@ -590,85 +726,165 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         }
 
         protected List<FlowLayout> buildEntryIndex(Collection<Entry> entries, boolean respectOrdinals, int... pageSizes) {
-            var indexSections = new ArrayList<FlowLayout>();
-            var currentSectionHeight = new MutableInt(0);
-            indexSections.add(Containers.verticalFlow(Sizing.fill(100), Sizing.content()));
+            return new EntryIndex(entries, respectOrdinals).paginate(this.context.searchBox.getText().strip(), pageSizes);
+        }
+
+        /**
+         * Build an index of {@code entries} which follows the search box. The first section
+         * of the index is appended to {@code firstPage}, which must be the last page of this
+         * supplier at this point, and all remaining sections become pages of their own.
+         * Whenever the search changes, the existing index items are laid out again
+         */
+        protected void attachEntryIndex(Collection<Entry> entries, boolean respectOrdinals, FlowLayout firstPage, int firstPageSize) {
+            this.entryIndex = new EntryIndex(entries, respectOrdinals);
+            this.entryIndexFirstPage = firstPage;
+            this.entryIndexFirstPageSize = firstPageSize;
+            this.entryIndexPagesStart = this.pages.size();
+
+            this.applySearch();
+        }
+
+        /**
+         * Lay out this supplier's entry index again if the
+         * search changed since it was last laid out
+         */
+        protected void applySearch() {
+            if (this.entryIndex == null) return;
 
             var searchText = this.context.searchBox.getText().strip();
-            var filter = searchText.isEmpty() ? new String[0] : searchText.split(" ");
-            for (int i = 0; i < filter.length; i++) {
-                filter[i] = filter[i].strip().toLowerCase(Locale.ROOT);
-            }
+            if (searchText.equals(this.appliedSearchText)) return;
+            this.appliedSearchText = searchText;
 
-            entries.stream()
-                    .sorted((o1, o2) -> AlphanumComparator.compare(o1.title(), o2.title()))
-                    .sorted(respectOrdinals ? Comparator.comparingInt(Entry::ordinal) : (o1, o2) -> 0)
-                    .sorted(Comparator.comparing(entry -> !entry.canPlayerView(this.context.client.player)))
-                    .forEach(entry -> {
-                        boolean entryVisible = entry.canPlayerView(this.context.client.player);
-                        if (entry.secret() && !entryVisible) {
-                            return;
-                        }
+            var sections = this.entryIndex.paginate(searchText, this.entryIndexFirstPageSize);
 
-                        if (filter.length > 0) {
-                            if (!entryVisible) return;
+            if (this.entryIndexFirstSection != null) this.entryIndexFirstPage.removeChild(this.entryIndexFirstSection);
+            this.entryIndexFirstSection = sections.get(0);
+            this.entryIndexFirstPage.child(this.entryIndexFirstSection);
 
-                            var entryTitle = entry.title().toLowerCase(Locale.ROOT);
-                            for (var term : filter) {
-                                if (!entryTitle.contains(term)) return;
-                            }
-                        }
+            this.pages.subList(this.entryIndexPagesStart, this.pages.size()).clear();
+            this.pages.addAll(sections.subList(1, sections.size()));
+        }
 
-                        FlowLayout indexItem;
-                        boolean hasUnreadNotification;
-                        if (entryVisible) {
-                            hasUnreadNotification = this.context.book.shouldDisplayUnreadNotification(entry);
+        /**
+         * The items of an entry index, built and sorted once
+         * and then paginated for any number of searches
+         */
+        protected class EntryIndex {
 
-                            indexItem = this.context.template(FlowLayout.class, "index-item");
-                            indexItem.childById(StackLayout.class, "icon-anchor").child(entry.iconFactory().apply(Sizing.fill()));
+            private final List<IndexItem> items = new ArrayList<>();
+            private final Map<Entry, IndexItem> itemsByEntry = new Reference2ObjectOpenHashMap<>();
 
-                            var label = indexItem.childById(LabelComponent.class, "index-label");
+            protected EntryIndex(Collection<Entry> entries, boolean respectOrdinals) {
+                var book = PageSupplier.this.context.book;
+                var player = PageSupplier.this.context.client.player;
 
-                            label.text(Text.literal(entry.title()).styled($ -> $.withFont(MinecraftClient.UNICODE_FONT_ID).withItalic(false && hasUnreadNotification)));
-                            label.mouseDown().subscribe((mouseX, mouseY, button) -> {
-                                if (button != GLFW.GLFW_MOUSE_BUTTON_LEFT) return false;
+                Comparator<IndexItem> order = Comparator.comparing(item -> !item.visible);
+                if (respectOrdinals) order = order.thenComparingInt(item -> item.entry.ordinal());
+                order = order.thenComparing((o1, o2) -> AlphanumComparator.compare(o1.entry.title(), o2.entry.title()));
 
-                                this.context.navPush(new EntryPageSupplier(this.context, entry));
-                                UISounds.playInteractionSound();
-                                return true;
-                            });
+                for (var entry : entries) {
+                    boolean entryVisible = book.canPlayerView(entry, player);
+                    if (entry.secret() && !entryVisible) continue;
 
-                            var animation = label.color().animate(150, Easing.SINE, Color.ofFormatting(Formatting.GOLD));
-                            label.mouseEnter().subscribe(animation::forwards);
-                            label.mouseLeave().subscribe(animation::backwards);
+                    var item = this.buildItem(entry, entryVisible);
+                    this.items.add(item);
+                    this.itemsByEntry.put(entry, item);
+                }
 
-                            if (hasUnreadNotification) {
-                                indexItem.child(new UnreadNotificationComponent(this.context.bookTexture(), false));
-                            }
-                        } else {
-                            hasUnreadNotification = false;
+                this.items.sort(order);
+            }
 
-                            indexItem = this.context.template(FlowLayout.class, "locked-index-item");
-                            indexItem.childById(LabelComponent.class, "index-label").text(Text.translatable("text.lavender.entry.locked"));
-                        }
+            private IndexItem buildItem(Entry entry, boolean entryVisible) {
+                var context = PageSupplier.this.context;
 
-                        int sectionIndex = indexSections.size() - 1;
-                        int entryHeight = entry.canPlayerView(this.context.client.player)
-                                ? Math.max(8, this.lineCount(entry.title(), hasUnreadNotification) * 7) + 2
-                                : 10;
+                FlowLayout indexItem;
+                boolean hasUnreadNotification;
+                if (entryVisible) {
+                    hasUnreadNotification = context.book.shouldDisplayUnreadNotification(entry);
 
-                        if (currentSectionHeight.intValue() + entryHeight >= (sectionIndex < pageSizes.length ? pageSizes[sectionIndex] : 150)) {
-                            indexSections.add(Containers.verticalFlow(Sizing.fill(100), Sizing.content()));
-                            currentSectionHeight.setValue(0);
-                        }
+                    indexItem = context.template(FlowLayout.class, "index-item");
+                    indexItem.childById(StackLayout.class, "icon-anchor").child(entry.iconFactory().apply(Sizing.fill()));
+
+                    var label = indexItem.childById(LabelComponent.class, "index-label");
+
+                    label.text(Text.literal(entry.title()).styled($ -> $.withFont(MinecraftClient.UNICODE_FONT_ID).withItalic(false && hasUnreadNotification)));
+                    label.mouseDown().subscribe((mouseX, mouseY, button) -> {
+                        if (button != GLFW.GLFW_MOUSE_BUTTON_LEFT) return false;
 
-                        Iterables.getLast(indexSections).child(indexItem);
-                        currentSectionHeight.add(entryHeight);
+                        context.navPush(new EntryPageSupplier(context, entry));
+                        UISounds.playInteractionSound();
+                        return true;
                     });
 
-            return indexSections;
+                    var animation = label.color().animate(150, Easing.SINE, Color.ofFormatting(Formatting.GOLD));
+                    label.mouseEnter().subscribe(animation::forwards);
+                    label.mouseLeave().subscribe(animation::backwards);
+
+                    if (hasUnreadNotification) {
+                        indexItem.child(new UnreadNotificationComponent(context.bookTexture(), false));
+                    }
+                } else {
+                    hasUnreadNotification = false;
+
+                    indexItem = context.template(FlowLayout.class, "locked-index-item");
+                    indexItem.childById(LabelComponent.class, "index-label").text(Text.translatable("text.lavender.entry.locked"));
+                }
+
+                int height = entryVisible
+                        ? Math.max(8, PageSupplier.this.lineCount(entry.title(), hasUnreadNotification) * 7) + 2
+                        : 10;
+
+                return new IndexItem(entry, entryVisible, indexItem, height);
+            }
+
+            /**
+             * Distribute all items matching {@code searchText} across sections, moving them
+             * out of whichever sections they were placed in by previous calls. Without search
+             * text, all items are displayed in index order, otherwise only the visible
+             * entries among the book's search results, in order of relevance, followed
+             * by those which only match the search when tolerating misspellings
+             */
+            protected List<FlowLayout> paginate(String searchText, int... pageSizes) {
+                for (var item : this.items) {
+                    var parent = item.component.parent();
+                    if (parent != null) parent.removeChild(item.component);
+                }
+
+                Collection<IndexItem> displayedItems = this.items;
+                if (!searchText.isEmpty()) {
+                    var book = PageSupplier.this.context.book;
+
+                    // exact matches come first, the ones which
+                    // only match when tolerating typos after them
+                    displayedItems = new LinkedHashSet<>();
+                    for (var result : Iterables.concat(book.search(searchText), book.searchSimilar(searchText))) {
+                        var item = this.itemsByEntry.get(result);
+                        if (item != null && item.visible) displayedItems.add(item);
+                    }
+                }
+
+                var sections = new ArrayList<FlowLayout>();
+                sections.add(Containers.verticalFlow(Sizing.fill(100), Sizing.content()));
+                int currentSectionHeight = 0;
+
+                for (var item : displayedItems) {
+                    int sectionIndex = sections.size() - 1;
+                    if (currentSectionHeight + item.height >= (sectionIndex < pageSizes.length ? pageSizes[sectionIndex] : 150)) {
+                        sections.add(Containers.verticalFlow(Sizing.fill(100), Sizing.content()));
+                        currentSectionHeight = 0;
+                    }
+
+                    Iterables.getLast(sections).child(item.component);
+                    currentSectionHeight += item.height;
+                }
+
+                return sections;
+            }
+
         }
 
+        private record IndexItem(Entry entry, boolean visible, Component component, int height) {}
+
         protected FlowLayout buildCategoryIndex(Stream<Category> categories) {
             var categoryContainer = Containers.ltrTextFlow(Sizing.fill(100), Sizing.content()).gap(4);
             categories
@@ -729,17 +945,18 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             if (landingPageEntry != null) {
                 var landingPage = Containers.verticalFlow(Sizing.fill(100), Sizing.fill(100));
                 landingPage.child(this.context.template(Component.class, "landing-page-header", Map.of("page-title", landingPageEntry.title())));
-                landingPage.child(this.parseMarkdown(landingPageEntry.content()));
+                landingPage.child(this.parseMarkdown(landingPageEntry.lazyContent()));
 
                 if (book.displayCompletion()) {
+                    int visibleEntries = book.countVisibleEntries(this.context.client.player);
                     var completionBar = this.context.template(
                             FlowLayout.class,
                             "completion-bar",
-                            Map.of("progress", String.valueOf((int) (100 * (book.countVisibleEntries(this.context.client.player) / (float) book.entries().size()))))
+                            Map.of("progress", String.valueOf((int) (100 * (visibleEntries / (float) book.entries().size()))))
                     );
 
                     completionBar.childById(LabelComponent.class, "completion-label")
-                            .text(Text.translatable("text.lavender.book.unlock_progress", book.countVisibleEntries(this.context.client.player), book.entries().size()));
+                            .text(Text.translatable("text.lavender.book.unlock_progress", visibleEntries, book.entries().size()));
 
                     landingPage.child(completionBar);
                 }
@@ -786,9 +1003,7 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
                     ? 150 - 36 - MathHelper.ceilDiv(book.categories().size() - 1, 4) * 24
                     : 150;
 
-            var orphanedEntries = this.buildEntryIndex(book.orphanedEntries(), true, entriesOnCategoryPage);
-            indexPage.child(orphanedEntries.remove(0));
-            this.pages.addAll(orphanedEntries);
+            this.attachEntryIndex(book.orphanedEntries(), true, indexPage, entriesOnCategoryPage);
         }
 
         @Override
@@ -796,6 +1011,11 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             return true;
         }
 
+        @Override
+        public boolean showsViewedEntries() {
+            return true;
+        }
+
         @Override
         public boolean canMerge(PageSupplier other) {
             return other instanceof LandingPageSupplier;
@@ -812,9 +1032,10 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
         public IndexPageSupplier(LavenderBookScreen context) {
             super(context);
 
-            var entries = this.buildEntryIndex(this.context.book.entries(), false, 125);
-            this.pages.add(this.pageWithHeader(Text.translatable("text.lavender.index_category.title")).child(entries.remove(0)));
-            this.pages.addAll(entries);
+            var firstPage = this.pageWithHeader(Text.translatable("text.lavender.index_category.title"));
+            this.pages.add(firstPage);
+
+            this.attachEntryIndex(this.context.book.entries(), false, firstPage, 125);
         }
 
         @Override
@@ -822,6 +1043,11 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             return true;
         }
 
+        @Override
+        public boolean showsViewedEntries() {
+            return true;
+        }
+
         @Override
         boolean canMerge(PageSupplier other) {
             return other instanceof IndexPageSupplier;
@@ -903,7 +1129,7 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
 
             // --- landing page ---
 
-            var parsedLandingPage = this.parseMarkdown(category.content());
+            var parsedLandingPage = this.parseMarkdown(category.lazyContent());
 
             var landingPageContent = parsedLandingPage.children().get(0);
             parsedLandingPage.removeChild(landingPageContent);
@@ -920,44 +1146,32 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
 
             var entries = this.context.book.entriesByCategory(this.category);
             if (entries != null) {
-                var indexPages = this.buildEntryIndex(entries, true, entriesOnCategoryPage);
-                for (int i = 0; i < indexPages.size(); i++) {
-                    var page = i == 0
-                            ? this.pageWithHeader(Text.translatable("text.lavender.index")).child(indexPages.get(0))
-                            : indexPages.get(i);
-
-                    if (i == 0 && !categoryContainer.children().isEmpty()) {
-                        page.child(1, categoryContainer).child(2, this.context.bookComponentSource.builtinTemplate(Component.class, "horizontal-rule").margins(Insets.vertical(6)));
-                    }
-
-                    this.pages.add(page);
+                var firstPage = this.pageWithHeader(Text.translatable("text.lavender.index"));
+                if (!categoryContainer.children().isEmpty()) {
+                    firstPage.child(categoryContainer).child(this.context.bookComponentSource.builtinTemplate(Component.class, "horizontal-rule").margins(Insets.vertical(6)));
                 }
 
+                this.pages.add(firstPage);
+                this.attachEntryIndex(entries, true, firstPage, entriesOnCategoryPage);
+
                 if (this.context.book.displayCompletion()) {
+                    int visibleEntries = this.context.book.countVisibleEntries(this.category, this.context.client.player);
                     var completionBar = this.context.template(
                             FlowLayout.class,
                             "completion-bar",
-                            Map.of("progress", String.valueOf((int) (100 * (this.countVisibleEntries(entries, this.context.client.player) / (float) entries.size()))))
+                            Map.of("progress", String.valueOf((int) (100 * (visibleEntries / (float) entries.size()))))
                     );
 
                     completionBar.childById(LabelComponent.class, "completion-label")
-                            .text(Text.translatable("text.lavender.book.unlock_progress", this.countVisibleEntries(entries, this.context.client.player), entries.size()));
+                            .text(Text.translatable("text.lavender.book.unlock_progress", visibleEntries, entries.size()));
 
                     landingPage.child(completionBar);
                 }
             } else {
                 this.pages.add(this.pageWithHeader(Text.translatable("text.lavender.index")).child(categoryContainer).child(this.context.bookComponentSource.builtinTemplate(Component.class, "horizontal-rule").margins(Insets.vertical(6))));
             }
-        }
-
-        protected int countVisibleEntries(Collection<Entry> entries, ClientPlayerEntity player) {
-            int visible = 0;
-            for (var entry : entries) {
-                if (!entry.canPlayerView(player)) continue;
-                visible++;
-            }
 
-            return visible;
+            this.prefetchLinks(category.id());
         }
 
         @Override
@@ -965,6 +1179,11 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             return true;
         }
 
+        @Override
+        public boolean showsViewedEntries() {
+            return true;
+        }
+
         @Override
         public boolean canMerge(PageSupplier other) {
             return other instanceof CategoryPageSupplier supplier && supplier.category.id().equals(this.category.id());
@@ -993,22 +1212,39 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             super(context);
             this.entry = entry;
 
-            var pages = this.parseMarkdown(entry.content());
-            boolean firstPage = true;
+            var cacheKey = new CompiledPageCache.Key(
+                    this.context.book.id(),
+                    entry.id(),
+                    entry.lazyContent(),
+                    this.context.scaleFactor,
+                    this.context.book.displayRevision().visibility()
+            );
 
-            while (!pages.children().isEmpty()) {
-                var component = pages.children().get(0);
-                pages.removeChild(component);
+            var cachedPages = CompiledPageCache.get(cacheKey, this.context);
+            if (cachedPages != null) {
+                this.pages.addAll(cachedPages);
+            } else {
+                var owner = new MutableObject<>(this.context);
+                var pages = this.parseMarkdown(entry.lazyContent(), owner);
+                boolean firstPage = true;
 
-                if (firstPage) {
-                    firstPage = false;
-                    this.pages.add(this.pageWithHeader(Text.literal(entry.title())).child(component));
-                } else {
-                    this.pages.add(component);
+                while (!pages.children().isEmpty()) {
+                    var component = pages.children().get(0);
+                    pages.removeChild(component);
+
+                    if (firstPage) {
+                        firstPage = false;
+                        this.pages.add(this.pageWithHeader(Text.literal(entry.title())).child(component));
+                    } else {
+                        this.pages.add(component);
+                    }
                 }
+
+                CompiledPageCache.put(cacheKey, this.pages, owner);
             }
 
             LavenderClientStorage.markEntryViewed(this.context.book, entry);
+            this.prefetchLinks(entry.id());
         }
 
         @Override
@@ -1021,7 +1257,7 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
             var entryId = this.entry.id();
             return context -> {
                 var entry = context.book.entryById(entryId);
-                return entry != null && entry.canPlayerView(context.client.player) ? new EntryPageSupplier(context, entry) : null;
+                return entry != null && context.book.canPlayerView(entry, context.client.player) ? new EntryPageSupplier(context, entry) : null;
             };
         }
 
@@ -1032,12 +1268,15 @@ public class LavenderBookScreen extends BaseUIModelScreen<FlowLayout> implements
     }
 
     public static class NavFrame {
-        public final PageSupplier pageSupplier;
+        public PageSupplier pageSupplier;
         public int selectedPage;
 
+        private @Nullable Book.DisplayRevision displayRevision;
+
         public NavFrame(PageSupplier pageSupplier, int selectedPage) {
             this.pageSupplier = pageSupplier;
             this.selectedPage = selectedPage;
+            this.displayRevision = pageSupplier.context.book.displayRevision();
         }
 
         public Replicator replicator() {
@@ -6,8 +6,10 @@ import io.wispforest.lavender.book.Book;
 import io.wispforest.lavender.book.BookContentLoader;
 import io.wispforest.lavender.book.BookLoader;
 import io.wispforest.lavender.book.LavenderBookItem;
+import io.wispforest.lavender.book.LavenderClientStorage;
 import io.wispforest.lavender.md.ItemListComponent;
 import io.wispforest.lavender.structure.LavenderStructures;
+import io.wispforest.owo.Owo;
 import io.wispforest.owo.ui.component.Components;
 import io.wispforest.owo.ui.container.Containers;
 import io.wispforest.owo.ui.container.FlowLayout;
@@ -23,6 +25,7 @@ import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.model.loading.v1.ModelLoadingPlugin;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
@@ -67,6 +70,10 @@ public class LavenderClient implements ClientModInitializer {
         BookLoader.initialize();
         BookContentLoader.initialize();
 
+        if (Owo.DEBUG) BookResourceWatcher.initialize();
+
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> LavenderClientStorage.flush());
+
         ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
             BookLoader.reload(MinecraftClient.getInstance().getResourceManager());
             BookContentLoader.reloadContents(MinecraftClient.getInstance().getResourceManager());
@@ -88,7 +95,7 @@ public class LavenderClient implements ClientModInitializer {
                 if (item == Items.AIR) return;
 
                 var associatedEntry = book.entryByAssociatedItem(item.getDefaultStack());
-                if (associatedEntry == null || !associatedEntry.canPlayerView(client.player)) return;
+                if (associatedEntry == null || !book.canPlayerView(associatedEntry, client.player)) return;
 
                 container.child(Containers.verticalFlow(Sizing.content(), Sizing.content())
                         .child(associatedEntry.iconFactory().apply(Sizing.fixed(16)).margins(Insets.of(0, 1, 0, 1)))
@@ -110,7 +117,7 @@ public class LavenderClient implements ClientModInitializer {
             if (item == Items.AIR) return ActionResult.PASS;
 
             var associatedEntry = book.entryByAssociatedItem(item.getDefaultStack());
-            if (associatedEntry == null || !associatedEntry.canPlayerView((ClientPlayerEntity) player)) {
+            if (associatedEntry == null || !book.canPlayerView(associatedEntry, (ClientPlayerEntity) player)) {
                 return ActionResult.PASS;
             }
 
@@ -122,9 +129,18 @@ public class LavenderClient implements ClientModInitializer {
         });
 
         ClientPlayNetworking.registerGlobalReceiver(Lavender.WORLD_ID_CHANNEL, (client, handler, buf, responseSender) -> {
-            currentWorldId = buf.readUuid();
+            var worldId = buf.readUuid();
+            client.execute(() -> {
+                currentWorldId = worldId;
+                LavenderClientStorage.loadWorld(worldId);
+            });
         });
 
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> client.execute(() -> {
+            currentWorldId = null;
+            LavenderClientStorage.unloadWorld();
+        }));
+
         UIParsing.registerFactory(Lavender.id("ingredient"), element -> {
             Lavender.LOGGER.warn("Deprecated <ingredient> element used, migrate to <item-list> instead");
             return new ItemListComponent();
@@ -0,0 +1,251 @@
+package io.wispforest.lavender.client;
+
+import io.wispforest.lavender.Lavender;
+import io.wispforest.lavender.book.Book;
+import io.wispforest.lavender.book.BookLoader;
+import io.wispforest.lavender.book.LazyContent;
+import io.wispforest.lavender.md.compiler.BookCompiler;
+import io.wispforest.lavender.md.features.GameLookup;
+import io.wispforest.lavendermd.Lexer;
+import io.wispforest.lavendermd.MarkdownFeature;
+import io.wispforest.lavendermd.Parser;
+import io.wispforest.owo.ui.core.Component;
+import io.wispforest.owo.ui.core.ParentComponent;
+import io.wispforest.owo.ui.parsing.UIModel;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The parse trees of the markdown contents of book entries and categories, so that
+ * displaying one of them only needs to compile its tree into components. Every book
+ * parses with one set of features whose component source is bound to the screen
+ * currently compiling, which makes its trees independent of any particular screen.
+ * Like the contents themselves, trees are only softly referenced
+ * <p>
+ * For books which opted in through {@link LavenderBookScreen#enableParseWarmUp(Identifier)},
+ * all contents are parsed on worker threads right after they are (re-)loaded, which
+ * also reports malformed entries immediately instead of when they are first opened.
+ * Independently of that, the pages an entry links to are parsed in the background
+ * while it is displayed, so that following one of its links needs no parsing
+ */
+@ApiStatus.Internal
+public final class ParsedEntryCache {
+
+    private static final int PARSE_BATCH_SIZE = 16;
+
+    private static final Map<Identifier, BookTrees> TREES = new HashMap<>();
+
+    // incremented whenever all trees are discarded, so that background
+    // parses which are still running at that point do not insert their results
+    private static int generation = 0;
+
+    // recipes, structures and tags are resolved while parsing, so background parses read
+    // a copy of them taken on the client thread. It is discarded along with the trees
+    private static @Nullable GameLookup lookupSnapshot = null;
+
+    private ParsedEntryCache() {}
+
+    /**
+     * Compile {@code content} into components, parsing it
+     * first unless its tree is already cached
+     *
+     * @param componentSource The source to create components from
+     *                        while the tree is compiled
+     */
+    static ParentComponent compile(Book book, LazyContent content, BookCompiler.ComponentSource componentSource) {
+        var trees = treesOf(book);
+
+        var tree = trees.get(content);
+        if (tree == null) {
+            tree = trees.grammar().parse(content.get());
+            trees.put(content, tree);
+        }
+
+        var compiler = new BookCompiler(componentSource);
+
+        trees.componentSource.bind(componentSource);
+        try {
+            tree.visit(compiler);
+        } finally {
+            trees.componentSource.bind(null);
+        }
+
+        return compiler.compile();
+    }
+
+    /**
+     * Parse the contents of every loaded book which opted into
+     * warm-up and is not already cached, in the background
+     */
+    public static void warmUp() {
+        var client = MinecraftClient.getInstance();
+
+        // recipes are resolved while parsing, which
+        // is not possible without a world to get them from
+        if (client.world == null) return;
+
+        for (var book : BookLoader.loadedBooks()) {
+            if (!LavenderBookScreen.shouldWarmUp(book.id())) continue;
+
+            var targets = new ArrayList<ParseTarget>();
+            if (book.landingPage() != null) targets.add(new ParseTarget(book.landingPage().id(), book.landingPage().lazyContent()));
+            for (var category : book.categories()) targets.add(new ParseTarget(category.id(), category.lazyContent()));
+            for (var entry : book.entries()) targets.add(new ParseTarget(entry.id(), entry.lazyContent()));
+
+            parseInBackground(book, targets);
+        }
+    }
+
+    /**
+     * Parse the given contents of {@code book} in the background,
+     * unless their trees are already cached or being parsed
+     *
+     * @param contents The contents to parse, keyed by the id
+     *                 of the entry or category they belong to
+     */
+    static void prefetch(Book book, Map<Identifier, LazyContent> contents) {
+        var targets = new ArrayList<ParseTarget>(contents.size());
+        contents.forEach((id, content) -> targets.add(new ParseTarget(id, content)));
+
+        parseInBackground(book, targets);
+    }
+
+    /**
+     * Discard all parse trees, causing contents to be parsed again
+     * the next time they are displayed or warmed up
+     */
+    public static void clear() {
+        TREES.clear();
+        generation++;
+        lookupSnapshot = null;
+    }
+
+    private static void parseInBackground(Book book, List<ParseTarget> targets) {
+        if (MinecraftClient.getInstance().world == null) return;
+        var trees = treesOf(book);
+
+        targets = new ArrayList<>(targets);
+        targets.removeIf(target -> trees.get(target.content) != null || !trees.pending.add(target.content));
+        if (targets.isEmpty()) return;
+
+        if (lookupSnapshot == null) lookupSnapshot = GameLookup.snapshot();
+        var lookup = lookupSnapshot;
+
+        int parseGeneration = generation;
+        for (int batchStart = 0; batchStart < targets.size(); batchStart += PARSE_BATCH_SIZE) {
+            var batch = targets.subList(batchStart, Math.min(batchStart + PARSE_BATCH_SIZE, targets.size()));
+
+            // every batch gets its own grammar, built here since
+            // feature providers expect to be invoked on this thread
+            var grammar = trees.createGrammar(lookup);
+
+            CompletableFuture.supplyAsync(() -> parseBatch(book, grammar, batch), Util.getMainWorkerExecutor()).thenAcceptAsync(parsed -> {
+                if (parseGeneration != generation) return;
+
+                for (var target : batch) trees.pending.remove(target.content);
+                parsed.forEach(trees::put);
+            }, MinecraftClient.getInstance());
+        }
+    }
+
+    private static Map<LazyContent, Parser.Node> parseBatch(Book book, Grammar grammar, List<ParseTarget> batch) {
+        var parsed = new IdentityHashMap<LazyContent, Parser.Node>();
+        for (var target : batch) {
+            try {
+                parsed.put(target.content, grammar.parse(target.content.get()));
+            } catch (RuntimeException e) {
+                Lavender.LOGGER.warn("Could not parse '{}' of book '{}', it will fail to display", target.id, book.id(), e);
+            }
+        }
+
+        return parsed;
+    }
+
+    private static BookTrees treesOf(Book book) {
+        var trees = TREES.get(book.id());
+        if (trees == null || trees.book != book) {
+            TREES.put(book.id(), trees = new BookTrees(book));
+        }
+
+        return trees;
+    }
+
+    private static final class BookTrees {
+
+        private final Book book;
+        private final BoundComponentSource componentSource = new BoundComponentSource();
+        private final Map<LazyContent, SoftReference<Parser.Node>> trees = new IdentityHashMap<>();
+        private final Set<LazyContent> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private @Nullable Grammar grammar = null;
+
+        private BookTrees(Book book) {
+            this.book = book;
+        }
+
+        private @Nullable Parser.Node get(LazyContent content) {
+            var tree = this.trees.get(content);
+            return tree != null ? tree.get() : null;
+        }
+
+        private void put(LazyContent content, Parser.Node tree) {
+            this.trees.put(content, new SoftReference<>(tree));
+        }
+
+        private Grammar grammar() {
+            if (this.grammar == null) this.grammar = this.createGrammar(GameLookup.LIVE);
+            return this.grammar;
+        }
+
+        private Grammar createGrammar(GameLookup lookup) {
+            return Grammar.of(LavenderBookScreen.createProcessor(this.book, this.componentSource, lookup).features());
+        }
+    }
+
+    private record Grammar(Lexer lexer, Parser parser) {
+
+        private static Grammar of(List<MarkdownFeature> features) {
+            var lexer = new Lexer();
+            var parser = new Parser();
+
+            for (var feature : features) {
+                feature.registerTokens(lexer::registerToken);
+                feature.registerNodes(parser::registerNode);
+            }
+
+            return new Grammar(lexer, parser);
+        }
+
+        private Parser.Node parse(String markdown) {
+            return this.parser.parse(this.lexer.lex(markdown));
+        }
+    }
+
+    private record ParseTarget(Identifier id, LazyContent content) {}
+
+    /**
+     * A component source which forwards to that of
+     * whichever screen is currently compiling a tree
+     */
+    private static final class BoundComponentSource implements BookCompiler.ComponentSource {
+
+        private @Nullable BookCompiler.ComponentSource target = null;
+
+        private void bind(@Nullable BookCompiler.ComponentSource target) {
+            this.target = target;
+        }
+
+        @Override
+        public <C extends Component> C template(UIModel model, Class<C> expectedComponentClass, String name, Map<String, String> params) {
+            if (this.target == null) throw new IllegalStateException("Book components can only be created while a parse tree is compiled");
+            return this.target.template(model, expectedComponentClass, name, params);
+        }
+    }
+}
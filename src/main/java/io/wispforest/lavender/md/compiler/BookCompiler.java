@@ -135,7 +135,7 @@ public class BookCompiler extends OwoUICompiler {
             if (entry != null) {
                 return new LinkTarget(
                         Text.literal(entry.title()),
-                        entry.canPlayerView(MinecraftClient.getInstance().player)
+                        this.owner.book.canPlayerView(entry, MinecraftClient.getInstance().player)
                                 ? () -> new LavenderBookScreen.NavFrame(new LavenderBookScreen.EntryPageSupplier(this.owner, entry), targetPage)
                                 : null
                 );
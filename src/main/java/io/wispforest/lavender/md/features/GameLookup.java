@@ -0,0 +1,84 @@
+package io.wispforest.lavender.md.features;
+
+import io.wispforest.lavender.structure.LavenderStructures;
+import io.wispforest.lavender.structure.StructureTemplate;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.item.Item;
+import net.minecraft.recipe.RecipeEntry;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The game state which markdown features resolve while lexing. Lexing on
+ * the client thread may query it directly through {@link #LIVE}, while lexing
+ * on any other thread must use a {@link #snapshot()} taken on the client thread
+ * beforehand, since recipes, structures and tags are replaced there at any time
+ */
+public interface GameLookup {
+
+    GameLookup LIVE = new GameLookup() {
+        @Override
+        public Optional<RecipeEntry<?>> recipe(Identifier recipeId) {
+            return MinecraftClient.getInstance().world.getRecipeManager().get(recipeId);
+        }
+
+        @Override
+        public @Nullable StructureTemplate structure(Identifier structureId) {
+            return LavenderStructures.get(structureId);
+        }
+
+        @Override
+        public boolean hasItemTag(TagKey<Item> tag) {
+            return Registries.ITEM.getEntryList(tag).isPresent();
+        }
+    };
+
+    Optional<RecipeEntry<?>> recipe(Identifier recipeId);
+
+    @Nullable StructureTemplate structure(Identifier structureId);
+
+    boolean hasItemTag(TagKey<Item> tag);
+
+    /**
+     * Copy the current recipes, structures and item tags, which requires
+     * a world to be loaded. Must be invoked on the client thread
+     */
+    static GameLookup snapshot() {
+        var recipes = new HashMap<Identifier, RecipeEntry<?>>();
+        for (var recipe : MinecraftClient.getInstance().world.getRecipeManager().values()) {
+            recipes.put(recipe.id(), recipe);
+        }
+
+        var structures = new HashMap<Identifier, StructureTemplate>();
+        for (var structureId : LavenderStructures.loadedStructures()) {
+            structures.put(structureId, LavenderStructures.get(structureId));
+        }
+
+        return new Snapshot(recipes, structures, Registries.ITEM.streamTags().collect(Collectors.toUnmodifiableSet()));
+    }
+
+    record Snapshot(Map<Identifier, RecipeEntry<?>> recipes, Map<Identifier, StructureTemplate> structures, Set<TagKey<Item>> itemTags) implements GameLookup {
+        @Override
+        public Optional<RecipeEntry<?>> recipe(Identifier recipeId) {
+            return Optional.ofNullable(this.recipes.get(recipeId));
+        }
+
+        @Override
+        public @Nullable StructureTemplate structure(Identifier structureId) {
+            return this.structures.get(structureId);
+        }
+
+        @Override
+        public boolean hasItemTag(TagKey<Item> tag) {
+            return this.itemTags.contains(tag);
+        }
+    }
+}
@@ -7,13 +7,22 @@ import io.wispforest.lavendermd.Parser;
 import io.wispforest.lavendermd.compiler.MarkdownCompiler;
 import io.wispforest.lavendermd.compiler.OwoUICompiler;
 import net.minecraft.item.Item;
-import net.minecraft.registry.Registries;
 import net.minecraft.registry.RegistryKeys;
 import net.minecraft.registry.tag.TagKey;
 import net.minecraft.util.Identifier;
 
 public class ItemTagFeature implements MarkdownFeature {
 
+    private final GameLookup lookup;
+
+    public ItemTagFeature() {
+        this(GameLookup.LIVE);
+    }
+
+    public ItemTagFeature(GameLookup lookup) {
+        this.lookup = lookup;
+    }
+
     @Override
     public String name() {
         return "item_tags";
@@ -36,7 +45,7 @@ public class ItemTagFeature implements MarkdownFeature {
             if (tagId == null) return false;
 
             var tagKey = TagKey.of(RegistryKeys.ITEM, tagId);
-            if (Registries.ITEM.getEntryList(tagKey).isEmpty()) return false;
+            if (!this.lookup.hasItemTag(tagKey)) return false;
 
             tokens.add(new ItemTagToken(tagString, tagKey));
             return true;
@@ -30,6 +30,7 @@ public class RecipeFeature implements MarkdownFeature {
 
     private final BookCompiler.ComponentSource bookComponentSource;
     private final Map<RecipeType<?>, RecipePreviewBuilder<?>> previewBuilders;
+    private final GameLookup lookup;
 
     public static final RecipePreviewBuilder<CraftingRecipe> CRAFTING_PREVIEW_BUILDER = new RecipePreviewBuilder<>() {
         @Override
@@ -95,7 +96,12 @@ public class RecipeFeature implements MarkdownFeature {
     public static final RecipePreviewBuilder<StonecuttingRecipe> STONECUTTING_HANDLER = STONECUTTING_PREVIEW_BUILDER;
 
     public RecipeFeature(BookCompiler.ComponentSource bookComponentSource, @Nullable Map<RecipeType<?>, RecipePreviewBuilder<?>> previewBuilders) {
+        this(bookComponentSource, previewBuilders, GameLookup.LIVE);
+    }
+
+    public RecipeFeature(BookCompiler.ComponentSource bookComponentSource, @Nullable Map<RecipeType<?>, RecipePreviewBuilder<?>> previewBuilders, GameLookup lookup) {
         this.bookComponentSource = bookComponentSource;
+        this.lookup = lookup;
 
         this.previewBuilders = new HashMap<>(previewBuilders != null ? previewBuilders : Map.of());
         this.previewBuilders.putIfAbsent(RecipeType.CRAFTING, CRAFTING_PREVIEW_BUILDER);
@@ -128,7 +134,7 @@ public class RecipeFeature implements MarkdownFeature {
             var recipeId = Identifier.tryParse(recipeIdString);
             if (recipeId == null) return false;
 
-            var recipe = MinecraftClient.getInstance().world.getRecipeManager().get(recipeId);
+            var recipe = this.lookup.recipe(recipeId);
             if (recipe.isEmpty()) return false;
 
             //noinspection unchecked
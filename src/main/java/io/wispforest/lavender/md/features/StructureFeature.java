@@ -4,7 +4,6 @@ import com.google.common.primitives.Ints;
 import io.wispforest.lavender.book.StructureComponent;
 import io.wispforest.lavender.client.StructureOverlayRenderer;
 import io.wispforest.lavender.md.compiler.BookCompiler;
-import io.wispforest.lavender.structure.LavenderStructures;
 import io.wispforest.lavender.structure.StructureTemplate;
 import io.wispforest.lavendermd.Lexer;
 import io.wispforest.lavendermd.MarkdownFeature;
@@ -21,9 +20,15 @@ import java.util.Map;
 public class StructureFeature implements MarkdownFeature {
 
     private final BookCompiler.ComponentSource bookComponentSource;
+    private final GameLookup lookup;
 
     public StructureFeature(BookCompiler.ComponentSource bookComponentSource) {
+        this(bookComponentSource, GameLookup.LIVE);
+    }
+
+    public StructureFeature(BookCompiler.ComponentSource bookComponentSource, GameLookup lookup) {
         this.bookComponentSource = bookComponentSource;
+        this.lookup = lookup;
     }
 
     @Override
@@ -62,7 +67,7 @@ public class StructureFeature implements MarkdownFeature {
             var structureId = Identifier.tryParse(structureIdString);
             if (structureId == null) return false;
 
-            var structure = LavenderStructures.get(structureId);
+            var structure = this.lookup.structure(structureId);
             if (structure == null) return false;
 
             tokens.add(new StructureToken(structureIdString, structure, angle, placeable));
@@ -0,0 +1,19 @@
+package io.wispforest.lavender.mixin;
+
+import io.wispforest.lavender.book.Book;
+import net.minecraft.client.network.ClientAdvancementManager;
+import net.minecraft.network.packet.s2c.play.AdvancementUpdateS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientAdvancementManager.class)
+public class ClientAdvancementManagerMixin {
+
+    @Inject(method = "onAdvancements", at = @At("TAIL"))
+    private void invalidateEntryVisibility(AdvancementUpdateS2CPacket packet, CallbackInfo ci) {
+        Book.invalidateVisibility();
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.wispforest.lavender.mixin;
+
+import io.wispforest.lavender.client.CompiledPageCache;
+import io.wispforest.lavender.client.ParsedEntryCache;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.SynchronizeRecipesS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientPlayNetworkHandler.class)
+public class ClientPlayNetworkHandlerMixin {
+
+    // recipes are resolved while entries are parsed, so all trees
+    // and pages built from the previous set of recipes are outdated
+    @Inject(method = "onSynchronizeRecipes", at = @At("TAIL"))
+    private void invalidateParsedEntries(SynchronizeRecipesS2CPacket packet, CallbackInfo ci) {
+        CompiledPageCache.clear();
+        ParsedEntryCache.clear();
+        ParsedEntryCache.warmUp();
+    }
+
+}
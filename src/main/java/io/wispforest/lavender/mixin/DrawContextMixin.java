@@ -2,9 +2,10 @@ package io.wispforest.lavender.mixin;
 
 import com.llamalad7.mixinextras.sugar.Local;
 import com.llamalad7.mixinextras.sugar.ref.LocalRef;
+import io.wispforest.lavender.book.AssociatedItemIndex;
 import io.wispforest.lavender.book.LavenderBookItem;
-import io.wispforest.lavender.book.BookLoader;
 import io.wispforest.lavender.client.AssociatedEntryTooltipComponent;
+import io.wispforest.lavender.client.BookSlotTracker;
 import io.wispforest.lavender.client.LavenderBookScreen;
 import io.wispforest.owo.ui.util.Delta;
 import net.minecraft.client.MinecraftClient;
@@ -34,23 +35,13 @@ public class DrawContextMixin {
             var stack = AssociatedEntryTooltipComponent.tooltipStack.get();
             AssociatedEntryTooltipComponent.tooltipStack = null;
 
-            for (var book : BookLoader.loadedBooks()) {
-                var associatedEntry = book.entryByAssociatedItem(stack);
-                if (associatedEntry == null || !associatedEntry.canPlayerView(client.player)) continue;
+            for (var association : AssociatedItemIndex.associationsOf(stack)) {
+                var book = association.book();
+                var associatedEntry = association.entry();
+                if (!book.canPlayerView(associatedEntry, client.player)) continue;
 
-                int bookIndex = -1;
-                for (int i = 0; i < 9; i++) {
-                    if (LavenderBookItem.bookOf(client.player.getInventory().getStack(i)) == book) {
-                        bookIndex = i;
-                        break;
-                    }
-                }
-
-                if (LavenderBookItem.bookOf(client.player.getOffHandStack()) == book) {
-                    bookIndex = -69;
-                }
-
-                if (bookIndex == -1) return;
+                int bookIndex = BookSlotTracker.slotOf(client.player.getInventory(), book);
+                if (bookIndex == BookSlotTracker.NO_SLOT) return;
 
                 components = new ArrayList<>(components);
                 components.add(new AssociatedEntryTooltipComponent(LavenderBookItem.itemOf(book), associatedEntry, entryTriggerProgress));
@@ -1,5 +1,6 @@
 package io.wispforest.lavender.mixin;
 
+import io.wispforest.lavender.book.AssociatedItemIndex;
 import io.wispforest.lavender.book.Book;
 import io.wispforest.lavender.book.LavenderBookItem;
 import io.wispforest.lavender.client.LavenderBookScreen;
@@ -27,6 +28,7 @@ public class MinecraftClientMixin {
 
     @Inject(method = "render", at = @At("HEAD"))
     private void onFrameStart(boolean tick, CallbackInfo ci) {
+        AssociatedItemIndex.beginFrame();
         if (this.player == null) return;
 
         Book bookToRender = null;
@@ -1,22 +1,27 @@
 package io.wispforest.lavender.structure;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import io.wispforest.lavender.Lavender;
+import io.wispforest.lavender.book.ReloadStatistics;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
 import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.minecraft.resource.JsonDataLoader;
+import net.minecraft.resource.ResourceFinder;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.JsonHelper;
 import net.minecraft.util.profiler.Profiler;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +29,10 @@ import java.util.Set;
 
 public class LavenderStructures {
 
+    private static final Gson GSON = new GsonBuilder().setLenient().disableHtmlEscaping().create();
+    private static final String STRUCTURE_DIRECTORY = "lavender/structures";
+    private static final ResourceFinder STRUCTURE_FINDER = ResourceFinder.json(STRUCTURE_DIRECTORY);
+
     private static final Map<Identifier, JsonObject> PENDING_STRUCTURES = new HashMap<>();
     private static final Map<Identifier, StructureTemplate> LOADED_STRUCTURES = new HashMap<>();
 
@@ -55,7 +64,39 @@ public class LavenderStructures {
         return LOADED_STRUCTURES.get(structureId);
     }
 
+    /**
+     * Reload only the structure at {@code location}, which was just
+     * created, modified or deleted
+     *
+     * @return {@code true} if {@code location} denotes a structure
+     */
+    @ApiStatus.Internal
+    public static boolean reloadStructure(ResourceManager manager, Identifier location) {
+        if (!location.getPath().startsWith(STRUCTURE_DIRECTORY + "/") || !location.getPath().endsWith(".json")) return false;
+
+        var structureId = STRUCTURE_FINDER.toResourceId(location);
+        PENDING_STRUCTURES.remove(structureId);
+        LOADED_STRUCTURES.remove(structureId);
+
+        var resource = manager.getResource(location);
+        if (resource.isEmpty()) return true;
+
+        try (var reader = resource.get().getReader()) {
+            var jsonElement = JsonHelper.deserialize(GSON, reader, JsonElement.class);
+            if (!jsonElement.isJsonObject()) return true;
+
+            PENDING_STRUCTURES.put(structureId, jsonElement.getAsJsonObject());
+            if (tagsAvailable) LOADED_STRUCTURES.put(structureId, StructureTemplate.parse(structureId, jsonElement.getAsJsonObject()));
+        } catch (IOException | JsonParseException e) {
+            Lavender.LOGGER.warn("Failed to load structure info {}", structureId, e);
+        }
+
+        return true;
+    }
+
     private static void tryParseStructures() {
+        long parseStart = System.nanoTime();
+
         LOADED_STRUCTURES.clear();
         PENDING_STRUCTURES.forEach((identifier, pending) -> {
             try {
@@ -64,11 +105,13 @@ public class LavenderStructures {
                 Lavender.LOGGER.warn("Failed to load structure info {}", identifier, e);
             }
         });
+
+        ReloadStatistics.recordStructures(LOADED_STRUCTURES.size(), parseStart);
     }
 
     private static class ReloadListener extends JsonDataLoader implements IdentifiableResourceReloadListener {
         public ReloadListener() {
-            super(new GsonBuilder().setLenient().disableHtmlEscaping().create(), "lavender/structures");
+            super(GSON, STRUCTURE_DIRECTORY);
         }
 
         @Override
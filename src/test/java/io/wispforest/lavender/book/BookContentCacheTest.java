@@ -0,0 +1,137 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookContentCacheTest {
+
+    private static final HashCode MACROS = Hashing.murmur3_128().hashString("macros", StandardCharsets.UTF_8);
+    private static final HashCode OTHER_MACROS = Hashing.murmur3_128().hashString("other macros", StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsEmptyWithoutFile() {
+        var cache = BookContentCache.load(this.directory.resolve("missing.bin"), MACROS);
+        assertNull(cache.get(key("entry", "content")));
+    }
+
+    @Test
+    void roundTripsRecords() {
+        var file = this.directory.resolve("book.bin");
+
+        var cache = BookContentCache.load(file, MACROS);
+        cache.put(key("first", "raw"), "expanded first");
+        cache.put(key("second", "raw"), "expanded second, with unicode: \u00e4\u00df\u2603");
+        cache.save();
+
+        var reloaded = BookContentCache.load(file, MACROS);
+        assertEquals(new BookContentCache.Record("expanded first"), reloaded.get(key("first", "raw")));
+        assertEquals(new BookContentCache.Record("expanded second, with unicode: \u00e4\u00df\u2603"), reloaded.get(key("second", "raw")));
+        assertNull(reloaded.get(key("first", "changed raw")));
+    }
+
+    @Test
+    void keepsRetainedRecordsAcrossIncrementalReloads() {
+        var file = this.directory.resolve("book.bin");
+
+        // full reload, every resource is expanded
+        var cache = BookContentCache.load(file, MACROS);
+        cache.put(key("unchanged", "raw"), "expanded unchanged");
+        cache.put(key("edited", "raw"), "expanded edited");
+        cache.put(key("deleted", "raw"), "expanded deleted");
+        cache.save();
+
+        // incremental reload, only the edited resource is processed
+        var incremental = BookContentCache.load(file, MACROS);
+        incremental.retain(key("unchanged", "raw"));
+        incremental.put(key("edited", "new raw"), "expanded new edited");
+        incremental.save();
+
+        // cold load after a restart
+        var cold = BookContentCache.load(file, MACROS);
+        assertEquals(new BookContentCache.Record("expanded unchanged"), cold.get(key("unchanged", "raw")));
+        assertEquals(new BookContentCache.Record("expanded new edited"), cold.get(key("edited", "new raw")));
+        assertNull(cold.get(key("edited", "raw")));
+        assertNull(cold.get(key("deleted", "raw")));
+    }
+
+    @Test
+    void keepsAllRecordsAcrossPartialReloads() {
+        var file = this.directory.resolve("book.bin");
+
+        var cache = BookContentCache.load(file, MACROS);
+        cache.put(key("first", "raw"), "expanded first");
+        cache.put(key("second", "raw"), "expanded second");
+        cache.save();
+
+        // hot reload of a single resource
+        var partial = BookContentCache.load(file, MACROS);
+        partial.put(key("second", "new raw"), "expanded new second");
+        partial.retainAll();
+        partial.save();
+
+        var cold = BookContentCache.load(file, MACROS);
+        assertEquals(new BookContentCache.Record("expanded first"), cold.get(key("first", "raw")));
+        assertEquals(new BookContentCache.Record("expanded new second"), cold.get(key("second", "new raw")));
+    }
+
+    @Test
+    void readsSingleBodies() {
+        var file = this.directory.resolve("book.bin");
+
+        var cache = BookContentCache.load(file, MACROS);
+        cache.put(key("first", "raw"), "expanded first");
+        cache.put(key("second", "raw"), "expanded second, with unicode: \u00e4\u00df\u2603");
+        cache.put(key("third", "raw"), "expanded third");
+        cache.save();
+
+        assertEquals("expanded first", BookContentCache.readBody(file, MACROS, key("first", "raw")));
+        assertEquals("expanded second, with unicode: \u00e4\u00df\u2603", BookContentCache.readBody(file, MACROS, key("second", "raw")));
+        assertEquals("expanded third", BookContentCache.readBody(file, MACROS, key("third", "raw")));
+        assertNull(BookContentCache.readBody(file, MACROS, key("first", "changed raw")));
+        assertNull(BookContentCache.readBody(file, OTHER_MACROS, key("first", "raw")));
+        assertNull(BookContentCache.readBody(this.directory.resolve("missing.bin"), MACROS, key("first", "raw")));
+    }
+
+    @Test
+    void discardsRecordsOfOtherMacroTables() {
+        var file = this.directory.resolve("book.bin");
+
+        var cache = BookContentCache.load(file, MACROS);
+        cache.put(key("entry", "raw"), "expanded");
+        cache.save();
+
+        assertNull(BookContentCache.load(file, OTHER_MACROS).get(key("entry", "raw")));
+    }
+
+    @Test
+    void discardsUnreadableFiles() throws IOException {
+        var file = this.directory.resolve("book.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4});
+
+        var cache = BookContentCache.load(file, MACROS);
+        assertNull(cache.get(key("entry", "raw")));
+
+        // the broken file must be replaced on the next save
+        cache.put(key("entry", "raw"), "expanded");
+        cache.save();
+
+        assertEquals(new BookContentCache.Record("expanded"), BookContentCache.load(file, MACROS).get(key("entry", "raw")));
+    }
+
+    private static HashCode key(String path, String content) {
+        return BookContentCache.keyOf("test_pack", new Identifier("lavender", path), Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,186 @@
+package io.wispforest.lavender.book;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LavenderClientStorageTest {
+
+    private static final UUID WORLD = UUID.fromString("5c1b2a3e-8f9d-4e6a-b7c8-d9e0f1a2b3c4");
+    private static final UUID OTHER_WORLD = UUID.fromString("0a1b2c3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d");
+
+    private static final Identifier BOOK = new Identifier("lavender", "book");
+    private static final Identifier OTHER_BOOK = new Identifier("lavender", "other_book");
+
+    private static final Identifier FIRST_ENTRY = new Identifier("lavender", "first");
+    private static final Identifier SECOND_ENTRY = new Identifier("lavender", "second");
+    private static final Identifier THIRD_ENTRY = new Identifier("lavender", "third");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reportsOnlyTheFirstViewOfAnEntry() {
+        var storage = new LavenderClientStorage.WorldStorage(WORLD);
+
+        assertTrue(storage.markEntryViewed(BOOK, FIRST_ENTRY));
+        assertFalse(storage.markEntryViewed(BOOK, FIRST_ENTRY));
+        assertTrue(storage.markEntryViewed(OTHER_BOOK, FIRST_ENTRY));
+
+        assertTrue(storage.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertFalse(storage.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertFalse(storage.wasEntryViewed(new Identifier("lavender", "unknown_book"), FIRST_ENTRY));
+    }
+
+    @Test
+    void roundTripsViewedEntryBitsets() {
+        var entryIds = new LavenderClientStorage.EntryIdTables();
+
+        var storage = new LavenderClientStorage.WorldStorage(WORLD, entryIds);
+        storage.markEntryViewed(BOOK, FIRST_ENTRY);
+        storage.markEntryViewed(BOOK, THIRD_ENTRY);
+        storage.markEntryViewed(OTHER_BOOK, SECOND_ENTRY);
+
+        // the world only stores its bitsets, the ids live in the shared tables
+        var data = storage.serialize();
+        assertFalse(data.toString().contains(FIRST_ENTRY.toString()));
+
+        var loadedIds = LavenderClientStorage.EntryIdTables.deserialize(entryIds.serialize());
+        var loaded = LavenderClientStorage.WorldStorage.deserialize(WORLD, data, loadedIds);
+        assertTrue(loaded.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertFalse(loaded.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertTrue(loaded.wasEntryViewed(BOOK, THIRD_ENTRY));
+        assertTrue(loaded.wasEntryViewed(OTHER_BOOK, SECOND_ENTRY));
+        assertFalse(loaded.wasEntryViewed(OTHER_BOOK, FIRST_ENTRY));
+
+        // entries viewed after loading must not shift the bits of existing ones
+        assertTrue(loaded.markEntryViewed(BOOK, SECOND_ENTRY));
+
+        var reloaded = LavenderClientStorage.WorldStorage.deserialize(WORLD, loaded.serialize(), loadedIds);
+        assertTrue(reloaded.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertTrue(reloaded.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertTrue(reloaded.wasEntryViewed(BOOK, THIRD_ENTRY));
+    }
+
+    @Test
+    void sharesEntryIdsBetweenWorlds() {
+        var entryIds = new LavenderClientStorage.EntryIdTables();
+        for (var entryId : List.of(FIRST_ENTRY, SECOND_ENTRY, THIRD_ENTRY)) entryIds.indexOrAdd(BOOK, entryId);
+
+        var world = new LavenderClientStorage.WorldStorage(WORLD, entryIds);
+        world.markEntryViewed(BOOK, FIRST_ENTRY);
+        world.markEntryViewed(BOOK, THIRD_ENTRY);
+
+        var otherWorld = new LavenderClientStorage.WorldStorage(OTHER_WORLD, entryIds);
+        otherWorld.markEntryViewed(BOOK, SECOND_ENTRY);
+
+        // bits of entries which were not viewed in a world stay unset
+        assertArrayEquals(new long[]{0b101}, viewedBits(world.serialize(), BOOK));
+        assertArrayEquals(new long[]{0b010}, viewedBits(otherWorld.serialize(), BOOK));
+
+        var loadedIds = LavenderClientStorage.EntryIdTables.deserialize(entryIds.serialize());
+        var loadedOtherWorld = LavenderClientStorage.WorldStorage.deserialize(OTHER_WORLD, otherWorld.serialize(), loadedIds);
+        assertFalse(loadedOtherWorld.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertTrue(loadedOtherWorld.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertFalse(loadedOtherWorld.wasEntryViewed(BOOK, THIRD_ENTRY));
+    }
+
+    @Test
+    void discardsBitsetsOfOtherTables() {
+        var storage = new LavenderClientStorage.WorldStorage(WORLD, new LavenderClientStorage.EntryIdTables());
+        storage.markEntryViewed(BOOK, FIRST_ENTRY);
+
+        var otherIds = new LavenderClientStorage.EntryIdTables();
+        otherIds.indexOrAdd(BOOK, SECOND_ENTRY);
+
+        var loaded = LavenderClientStorage.WorldStorage.deserialize(WORLD, storage.serialize(), otherIds);
+        assertFalse(loaded.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertFalse(loaded.wasEntryViewed(BOOK, SECOND_ENTRY));
+    }
+
+    @Test
+    void migratesLegacyStorage() {
+        var legacy = JsonParser.parseString("""
+                {
+                    "bookmarks": {"%1$s": {"lavender:book": [{"type": "ENTRY", "id": "lavender:first"}]}},
+                    "opened_books": {"%1$s": ["lavender:book"]},
+                    "viewed_entries": {"%1$s": {"lavender:book": ["lavender:first", "lavender:third"]}}
+                }
+                """.formatted(WORLD)).getAsJsonObject();
+
+        var worlds = LavenderClientStorage.splitLegacyStorage(legacy, new LavenderClientStorage.EntryIdTables());
+        assertEquals(1, worlds.size());
+
+        var storage = worlds.get(WORLD);
+        assertTrue(storage.wasBookOpened(BOOK));
+        assertFalse(storage.wasBookOpened(OTHER_BOOK));
+        assertEquals(List.of(new LavenderClientStorage.Bookmark(LavenderClientStorage.Bookmark.Type.ENTRY, FIRST_ENTRY)), storage.bookmarks(BOOK));
+
+        assertTrue(storage.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertFalse(storage.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertTrue(storage.wasEntryViewed(BOOK, THIRD_ENTRY));
+    }
+
+    @Test
+    void migratesEmptyLegacyStorage() {
+        assertTrue(LavenderClientStorage.splitLegacyStorage(new JsonObject(), new LavenderClientStorage.EntryIdTables()).isEmpty());
+    }
+
+    @Test
+    void mergesChangesMadeWhileLoading() {
+        var entryIds = new LavenderClientStorage.EntryIdTables();
+        var onDisk = new LavenderClientStorage.WorldStorage(WORLD, entryIds);
+        onDisk.markEntryViewed(BOOK, FIRST_ENTRY);
+
+        // the entry is viewed before the world's storage finished loading,
+        // which indexes it into tables of the storage's own
+        var storage = new LavenderClientStorage.WorldStorage(WORLD);
+        storage.markEntryViewed(BOOK, SECOND_ENTRY);
+
+        storage.absorb(LavenderClientStorage.WorldStorage.deserialize(WORLD, onDisk.serialize(), entryIds));
+        assertTrue(storage.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertTrue(storage.wasEntryViewed(BOOK, SECOND_ENTRY));
+        assertFalse(storage.markEntryViewed(BOOK, FIRST_ENTRY));
+    }
+
+    @Test
+    void replacesFilesWithoutLeavingTemporaryOnes() throws IOException {
+        var file = this.directory.resolve("storage").resolve(WORLD + ".json");
+
+        var entryIds = new LavenderClientStorage.EntryIdTables();
+
+        var first = new LavenderClientStorage.WorldStorage(WORLD, entryIds);
+        first.markEntryViewed(BOOK, FIRST_ENTRY);
+        LavenderClientStorage.write(file, first.serialize());
+
+        var second = new LavenderClientStorage.WorldStorage(WORLD, entryIds);
+        second.markEntryViewed(BOOK, SECOND_ENTRY);
+        LavenderClientStorage.write(file, second.serialize());
+
+        var written = LavenderClientStorage.WorldStorage.deserialize(WORLD, JsonParser.parseString(Files.readString(file)).getAsJsonObject(), entryIds);
+        assertFalse(written.wasEntryViewed(BOOK, FIRST_ENTRY));
+        assertTrue(written.wasEntryViewed(BOOK, SECOND_ENTRY));
+
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    private static long[] viewedBits(JsonObject data, Identifier bookId) {
+        var bits = data.getAsJsonObject("viewed_entries").getAsJsonArray(bookId.toString());
+
+        var words = new long[bits.size()];
+        for (int i = 0; i < words.length; i++) words[i] = bits.get(i).getAsLong();
+        return words;
+    }
+}
@@ -0,0 +1,108 @@
+package io.wispforest.lavender.book;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MacroExpanderTest {
+
+    private static final Identifier BOOK = new Identifier("lavender", "test_book");
+    private static final Identifier ENTRY = new Identifier("lavender", "test_entry");
+
+    private static final Book.Macro BOLD = new Book.Macro(List.of("**", "**"), IntList.of(0));
+    private static final Book.Macro PAIR = new Book.Macro(List.of("", "|", ""), IntList.of(0, 1));
+    private static final Book.Macro WRAP = new Book.Macro(List.of("[", "]"), IntList.of(0));
+
+    @Test
+    void expandsZeroArgMacros() {
+        var expander = new MacroExpander(BOOK, Map.of("{gold}", "{#ffd700}", "{reset}", "{}"), Map.of());
+        assertEquals("{#ffd700}gold{} and {#ffd700}more gold{}", expander.expand(ENTRY, "{gold}gold{reset} and {gold}more gold{reset}"));
+    }
+
+    @Test
+    void leavesInputWithoutInvocationsUntouched() {
+        var expander = new MacroExpander(BOOK, Map.of("{gold}", "{#ffd700}"), Map.of("bold", BOLD));
+
+        var input = "nothing to (see) here, bold as it may be";
+        assertEquals(input, expander.expand(ENTRY, input));
+    }
+
+    @Test
+    void expandsNestedInvocationsBeyondMacroCount() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of("bold", BOLD));
+        assertEquals("********x********", expander.expand(ENTRY, "bold(bold(bold(bold(x))))"));
+    }
+
+    @Test
+    void expandsMacrosInvokedByOtherMacros() {
+        var expander = new MacroExpander(
+                BOOK,
+                Map.of("{warning}", "bold({red}warning{})"),
+                Map.of("bold", BOLD, "note", new Book.Macro(List.of("{warning}: ", ""), IntList.of(0)))
+        );
+
+        assertEquals("**{red}warning{}**: careful", expander.expand(ENTRY, "note(careful)"));
+    }
+
+    @Test
+    void rejectsCircularZeroArgMacros() {
+        var expander = new MacroExpander(BOOK, Map.of("{ping}", "{pong}", "{pong}", "{ping}", "{safe}", "safe"), Map.of());
+
+        assertTrue(expander.expand(ENTRY, "{ping}").contains("Entry processing failed"));
+        assertEquals("safe", expander.expand(ENTRY, "{safe}"));
+    }
+
+    @Test
+    void rejectsCircularParametrizedMacros() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of(
+                "loop", new Book.Macro(List.of("loop(", ")"), IntList.of(0)),
+                "bold", BOLD
+        ));
+
+        assertTrue(expander.expand(ENTRY, "loop(x)").contains("Entry processing failed"));
+        assertEquals("**x**", expander.expand(ENTRY, "bold(x)"));
+    }
+
+    // --- argument reading ---
+
+    @Test
+    void resolvesEscapesInArguments() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of("bold", BOLD));
+        assertEquals("**a, b (c)**", expander.expand(ENTRY, "bold(a\\, b \\(c\\))"));
+    }
+
+    @Test
+    void joinsSurplusArgumentsIntoTheLastOne() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of("pair", PAIR));
+        assertEquals("a| b, c", expander.expand(ENTRY, "pair(a, b, c)"));
+    }
+
+    @Test
+    void keepsEscapesOfNestedInvocations() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of("pair", PAIR, "wrap", WRAP));
+        assertEquals("[a, b|c]", expander.expand(ENTRY, "wrap(pair(a\\, b,c))"));
+    }
+
+    @Test
+    void ignoresMalformedInvocations() {
+        var expander = new MacroExpander(BOOK, Map.of(), Map.of("pair", PAIR, "bold", BOLD));
+
+        assertEquals("pair(a)", expander.expand(ENTRY, "pair(a)"));
+        assertEquals("bold(a\nb)", expander.expand(ENTRY, "bold(a\nb)"));
+        assertEquals("bold(a", expander.expand(ENTRY, "bold(a"));
+    }
+
+    @Test
+    void fallsBackToShorterMacroAtSamePosition() {
+        var expander = new MacroExpander(BOOK, Map.of("note", "NOTE"), Map.of("note", WRAP));
+
+        assertEquals("[x]", expander.expand(ENTRY, "note(x)"));
+        assertEquals("NOTE(unterminated", expander.expand(ENTRY, "note(unterminated"));
+    }
+}
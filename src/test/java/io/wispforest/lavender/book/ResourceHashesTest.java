@@ -0,0 +1,70 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceHashesTest {
+
+    private static final Identifier ENTRY = new Identifier("lavender", "entry");
+    private static final Identifier TAGGED_ENTRY = new Identifier("lavender", "tagged_entry");
+
+    @Test
+    void detectsChangedContents() {
+        var hashes = new ResourceHashes();
+        assertFalse(hashes.isUnchanged(ENTRY, hash("first"), false));
+
+        hashes.record(ENTRY, hash("first"), false);
+        assertTrue(hashes.isUnchanged(ENTRY, hash("first"), false));
+        assertFalse(hashes.isUnchanged(ENTRY, hash("second"), false));
+    }
+
+    @Test
+    void rebuildsTagDependentResourcesWhenTagsChange() {
+        var hashes = new ResourceHashes();
+        hashes.record(ENTRY, hash("entry"), false);
+        hashes.record(TAGGED_ENTRY, hash("tagged"), true);
+
+        assertTrue(hashes.isUnchanged(ENTRY, hash("entry"), true));
+        assertTrue(hashes.isUnchanged(TAGGED_ENTRY, hash("tagged"), false));
+        assertFalse(hashes.isUnchanged(TAGGED_ENTRY, hash("tagged"), true));
+
+        // a resource that no longer depends on tags stops being rebuilt
+        hashes.record(TAGGED_ENTRY, hash("tagged"), false);
+        assertTrue(hashes.isUnchanged(TAGGED_ENTRY, hash("tagged"), true));
+    }
+
+    @Test
+    void forgetsResources() {
+        var hashes = new ResourceHashes();
+        hashes.record(ENTRY, hash("entry"), false);
+        hashes.record(TAGGED_ENTRY, hash("tagged"), true);
+
+        hashes.forget(TAGGED_ENTRY);
+        assertEquals(Set.of(ENTRY), hashes.resourceIds());
+        assertFalse(hashes.isUnchanged(TAGGED_ENTRY, hash("tagged"), false));
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        var hashes = new ResourceHashes();
+        hashes.record(ENTRY, hash("entry"), false);
+
+        var snapshot = hashes.copy();
+        hashes.record(ENTRY, hash("edited"), false);
+        hashes.record(TAGGED_ENTRY, hash("tagged"), true);
+
+        assertTrue(snapshot.isUnchanged(ENTRY, hash("entry"), false));
+        assertEquals(Set.of(ENTRY), snapshot.resourceIds());
+    }
+
+    private static HashCode hash(String content) {
+        return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8);
+    }
+}
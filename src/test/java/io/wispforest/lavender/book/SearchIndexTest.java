@@ -0,0 +1,79 @@
+package io.wispforest.lavender.book;
+
+import com.google.common.collect.ImmutableSet;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static final Category MACHINES = new Category(new Identifier("lavender", "machines"), null, "Machines", sizing -> null, false, 0, "");
+
+    @Test
+    void tokenizesWithoutCaseAndDiacritics() {
+        assertArrayEquals(new String[]{"creme", "brulee", "2nd", "try"}, SearchIndex.tokenize("Cr\u00e8me Br\u00fbl\u00e9e - 2nd try!"));
+        assertArrayEquals(new String[0], SearchIndex.tokenize(" -- "));
+    }
+
+    @Test
+    void extractsBodyTermsWithoutMarkup() {
+        var terms = SearchIndex.bodyTerms("Use the [crusher](lavender:crusher) on {gold}ore{} <item;minecraft:iron_ore> ore");
+        assertEquals(Set.of("use", "the", "crusher", "on", "ore"), Set.of(terms));
+    }
+
+    @Test
+    void requiresEveryQueryTerm() {
+        var furnace = entry("furnace", null, "Electric Furnace");
+        var generator = entry("generator", null, "Electric Generator");
+        var index = SearchIndex.build(List.of(furnace, generator), Map.of(), id -> null);
+
+        assertEquals(List.of(furnace, generator), index.query("electric"));
+        assertEquals(List.of(generator), index.query("generator electric"));
+        assertEquals(List.of(), index.query("electric pump"));
+        assertEquals(List.of(), index.query(""));
+    }
+
+    @Test
+    void matchesPrefixesOfTerms() {
+        var furnace = entry("furnace", null, "Electric Furnace");
+        var index = SearchIndex.build(List.of(furnace), Map.of(), id -> null);
+
+        assertEquals(List.of(furnace), index.query("elec furn"));
+        assertEquals(List.of(), index.query("furnaces"));
+    }
+
+    @Test
+    void ranksByFieldThenExactness() {
+        var inBody = entry("in_body", null, "Alpha");
+        var inCategory = entry("in_category", MACHINES.id(), "Beta");
+        var inTitle = entry("in_title", null, "Gamma Machineshop");
+        var exactInTitle = entry("exact_in_title", null, "Delta Machines");
+
+        var index = SearchIndex.build(
+                List.of(inBody, inCategory, inTitle, exactInTitle),
+                Map.of(inBody.id(), new String[]{"machines"}),
+                Map.of(MACHINES.id(), MACHINES)::get
+        );
+
+        assertEquals(List.of(exactInTitle, inTitle, inCategory, inBody), index.query("machines"));
+    }
+
+    @Test
+    void breaksTiesByTitle() {
+        var second = entry("second", null, "Pipe 10");
+        var first = entry("first", null, "Pipe 2");
+        var index = SearchIndex.build(List.of(second, first), Map.of(), id -> null);
+
+        assertEquals(List.of(first, second), index.query("pipe"));
+    }
+
+    static Entry entry(String path, @Nullable Identifier category, String title) {
+        return new Entry(new Identifier("lavender", path), category, title, sizing -> null, false, 0, ImmutableSet.of(), ImmutableSet.of(), "");
+    }
+}
@@ -0,0 +1,76 @@
+package io.wispforest.lavender.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.wispforest.lavender.book.SearchIndexTest.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+
+    @Test
+    void toleratesMisspelledWords() {
+        var furnace = entry("furnace", null, "Electric Furnace");
+        var index = TrigramIndex.build(List.of(furnace), Map.of());
+
+        // 5 of 7 and 8 trigrams shared, a similarity of 2/3
+        assertEquals(List.of(furnace), index.query("furnce"));
+        assertEquals(List.of(furnace), index.query("ELECTRIK"));
+    }
+
+    @Test
+    void rejectsWordsBelowMinimumSimilarity() {
+        var furnace = entry("furnace", null, "Furnace");
+        var index = TrigramIndex.build(List.of(furnace), Map.of());
+
+        // "ace" shares 2 of 4 and 8 trigrams, "ce" only 1 of 3 and 8
+        assertEquals(List.of(furnace), index.query("ace"));
+        assertEquals(List.of(), index.query("ce"));
+        assertEquals(List.of(), index.query("pump"));
+        assertEquals(List.of(), index.query(""));
+    }
+
+    @Test
+    void ranksBySimilarity() {
+        var furnaces = entry("furnaces", null, "Furnaces");
+        var furnace = entry("furnace", null, "Furnace");
+        var blastFurnace = entry("blast_furnace", null, "Blast Furnace");
+        var index = TrigramIndex.build(List.of(furnaces, furnace, blastFurnace), Map.of());
+
+        // exact matches tie and are ordered by title, "furnaces" only shares 7 of 8 and 9 trigrams
+        assertEquals(List.of(blastFurnace, furnace, furnaces), index.query("furnace"));
+    }
+
+    @Test
+    void requiresEveryWord() {
+        var electricFurnace = entry("electric_furnace", null, "Electric Furnace");
+        var electricPump = entry("electric_pump", null, "Electric Pump");
+        var stoneFurnace = entry("stone_furnace", null, "Stone Furnace");
+        var index = TrigramIndex.build(List.of(electricFurnace, electricPump, stoneFurnace), Map.of());
+
+        assertEquals(List.of(electricFurnace, stoneFurnace), index.query("furnace"));
+        assertEquals(List.of(electricFurnace), index.query("furnace electrc"));
+        assertEquals(List.of(electricFurnace, electricPump), index.query("electric"));
+    }
+
+    @Test
+    void ranksBySummedSimilarity() {
+        var blastedFurnaces = entry("blasted_furnaces", null, "Blasted Furnaces");
+        var smelterBlastFurnace = entry("smelter_blast_furnace", null, "Smelter Blast Furnace");
+        var index = TrigramIndex.build(List.of(blastedFurnaces, smelterBlastFurnace), Map.of());
+
+        // 2 exact words rank above similarities of 5/7 and 14/17, despite the title order
+        assertEquals(List.of(smelterBlastFurnace, blastedFurnaces), index.query("blast furnace"));
+    }
+
+    @Test
+    void matchesItemNames() {
+        var smeltery = entry("smeltery", null, "Smeltery");
+        var index = TrigramIndex.build(List.of(smeltery), Map.of(smeltery, List.of("Seared Bricks", "Smeltery Controller")));
+
+        assertEquals(List.of(smeltery), index.query("seered brick"));
+        assertEquals(List.of(smeltery), index.query("controler"));
+    }
+}